@@ -0,0 +1,103 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import static pl.derwinski.arkham.Util.log;
+
+/**
+ * Runs input loading steps on virtual threads and keeps the sum of their
+ * individual durations, so the wall-clock time of a concurrent load can be
+ * compared with what the same steps would take one after another.
+ *
+ * @author morvael
+ */
+public final class LoadTimer {
+
+    private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+    private static final boolean SEQUENTIAL = Boolean.getBoolean("arkham.sequentialLoad");
+
+    public static <T> T join(CompletableFuture<T> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private final long start = System.nanoTime();
+    private final LongAdder busy = new LongAdder();
+
+    public <T> CompletableFuture<T> supply(Callable<T> task) {
+        if (SEQUENTIAL) {
+            // baseline for comparison, steps run inline in submission order
+            try {
+                return CompletableFuture.completedFuture(time(task));
+            } catch (Exception ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return time(task);
+            } catch (Exception ex) {
+                throw new CompletionException(ex);
+            }
+        }, EXECUTOR);
+    }
+
+    public <T> T time(Callable<T> task) throws Exception {
+        var t0 = System.nanoTime();
+        try {
+            return task.call();
+        } finally {
+            busy.add(System.nanoTime() - t0);
+        }
+    }
+
+    //steps sharing a CPU stretch each other, so the sum overstates the sequential time on busy machines (compare with -Darkham.sequentialLoad=true)
+    public void report(String label) {
+        var wall = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        var sequential = TimeUnit.NANOSECONDS.toMillis(busy.sum());
+        if (SEQUENTIAL) {
+            log("Loaded %s inputs sequentially in %d ms", label, wall);
+        } else {
+            log("Loaded %s inputs in %d ms (sequential %d ms, saved %d ms)", label, wall, sequential, Math.max(0, sequential - wall));
+        }
+    }
+
+}
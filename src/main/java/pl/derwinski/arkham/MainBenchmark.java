@@ -0,0 +1,133 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham;
+
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import org.apache.commons.io.FileUtils;
+import static pl.derwinski.arkham.Util.log;
+import pl.derwinski.arkham.json.Card;
+import pl.derwinski.arkham.json.CardContext;
+import pl.derwinski.arkham.json.configuration.Configuration;
+import pl.derwinski.arkham.json.metadata.Metadata;
+
+/**
+ * Measures per-card decode cost of the cards file (tokenizing alone vs
+ * tokenizing and decoding every card).
+ *
+ * @author morvael
+ */
+public final class MainBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 20;
+    private static final int HEAP_ROUNDS = 4;
+
+    private final Configuration configuration;
+    private final CardContext context;
+    private final byte[] data;
+
+    public MainBenchmark(String language) throws Exception {
+        configuration = Configuration.loadConfiguration();
+        context = new CardContext(Metadata.loadMetadata("run/metadata_%s.json".formatted(language)));
+        data = FileUtils.readFileToByteArray(new File("run/cards_%s.json".formatted(language)));
+    }
+
+    private int pass(boolean decode) throws Exception {
+        return pass(decode, null);
+    }
+
+    private int pass(boolean decode, ArrayList<Card> retained) throws Exception {
+        var count = 0;
+        try (var p = Util.getJsonMapper().createParser(data)) {
+            if (Util.findField(p, "all_card") == false) {
+                throw new IllegalStateException("Missing all_card array");
+            }
+            while (p.nextToken() == JsonToken.START_OBJECT) {
+                if (decode) {
+                    var o = Card.readCard(configuration, context, p);
+                    if (retained != null) {
+                        retained.add(o);
+                    }
+                } else {
+                    p.skipChildren();
+                }
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private long measure(boolean decode) throws Exception {
+        for (var i = 0; i < WARMUP; i++) {
+            pass(decode);
+        }
+        var count = 0L;
+        var start = System.nanoTime();
+        for (var i = 0; i < ROUNDS; i++) {
+            count += pass(decode);
+        }
+        return (System.nanoTime() - start) / count;
+    }
+
+    private static long usedHeap() throws Exception {
+        for (var i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    //retained heap of decoded cards (strings included), normalized to 10k cards
+    private long measureHeap() throws Exception {
+        var retained = new ArrayList<Card>(HEAP_ROUNDS * 4096);
+        var before = usedHeap();
+        for (var i = 0; i < HEAP_ROUNDS; i++) {
+            pass(true, retained);
+        }
+        var after = usedHeap();
+        return (after - before) * 10000L / retained.size();
+    }
+
+    public void run() throws Exception {
+        var tokenize = measure(false);
+        var decode = measure(true);
+        log("Tokenize: %d ns/card, tokenize and decode: %d ns/card, decode only: %d ns/card", tokenize, decode, decode - tokenize);
+        log("Retained heap: %d KB per 10k cards", measureHeap() / 1024);
+    }
+
+    public static void main(String[] args) {
+        try {
+            new MainBenchmark(args.length > 0 ? args[0] : "en").run();
+        } catch (Exception ex) {
+            log(ex);
+        }
+    }
+
+}
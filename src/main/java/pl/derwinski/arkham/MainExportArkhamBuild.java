@@ -32,19 +32,23 @@ import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.Set;
+import java.util.Objects;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import static pl.derwinski.arkham.Util.log;
 import static pl.derwinski.arkham.Util.nvl;
 import pl.derwinski.arkham.json.Card;
+import pl.derwinski.arkham.json.CardTable;
 import pl.derwinski.arkham.json.Cards;
 import pl.derwinski.arkham.json.configuration.Configuration;
 import pl.derwinski.arkham.json.metadata.Metadata;
@@ -56,37 +60,49 @@ import pl.derwinski.arkham.json.metadata.Metadata;
  */
 public final class MainExportArkhamBuild {
 
-    private Cards cards;
-    private Configuration config;
-    private Metadata meta;
-    private boolean writeTab;
+    //tab-separated row writer, one per exported file so exporters running in parallel share no state
+    private static final class TsvWriter {
 
-    public MainExportArkhamBuild() {
+        private final BufferedWriter bw;
+        private boolean writeTab;
 
-    }
+        private TsvWriter(BufferedWriter bw) {
+            this.bw = bw;
+        }
 
-    private void writeBoolean(BufferedWriter bw, Boolean bool) throws Exception {
-        writeString(bw, bool != null ? (bool ? "1" : "0") : null);
-    }
+        private void writeBoolean(Boolean bool) throws Exception {
+            writeString(bool != null ? (bool ? "1" : "0") : null);
+        }
 
-    private void writeInteger(BufferedWriter bw, Integer number) throws Exception {
-        writeString(bw, number != null ? number.toString() : null);
-    }
+        private void writeInteger(Integer number) throws Exception {
+            writeString(number != null ? number.toString() : null);
+        }
 
-    private void writeString(BufferedWriter bw, String text) throws Exception {
-        if (writeTab) {
-            bw.write('\t');
-        } else {
-            writeTab = true;
+        private void writeString(String text) throws Exception {
+            if (writeTab) {
+                bw.write('\t');
+            } else {
+                writeTab = true;
+            }
+            if (text != null) {
+                bw.write(text.replace("’", "'").replace("·", "•").replace("“", "\"").replace("”", "\"").replace("–", "-").replace("…", "...").replace("[free]", "[fast]"));
+            }
         }
-        if (text != null) {
-            bw.write(text.replace("’", "'").replace("·", "•").replace("“", "\"").replace("”", "\"").replace("–", "-").replace("…", "...").replace("[free]", "[fast]"));
+
+        private void newLine() throws Exception {
+            bw.newLine();
+            writeTab = false;
         }
+
     }
 
-    private void newLine(BufferedWriter bw) throws Exception {
-        bw.newLine();
-        writeTab = false;
+    private Cards cards;
+    private Configuration config;
+    private Metadata meta;
+    private long stringPoolSaved;
+
+    public MainExportArkhamBuild() {
+
     }
 
     private String getString(Row row, int index) {
@@ -160,332 +176,331 @@ public final class MainExportArkhamBuild {
         }
     }
 
-    private void exportDefaultCards(File imagesDir, BufferedWriter bw, String predefinedPath) throws Exception {
-        try (var wb = WorkbookFactory.create(new File(predefinedPath), null, true)) {
-            var sheet = wb.getSheetAt(0);
-            for (var row : sheet) {
-                if (row.getRowNum() == 0) {
-                    continue;
-                }
-                var idx = 0;
-                var databaseId = getString(row, idx++);
-                if (databaseId == null) {
-                    continue;
-                }
-                writeString(bw, databaseId); //databaseId
-                writeString(bw, getString(row, idx++)); //name
-                writeString(bw, getImageUrl(imagesDir, getString(row, idx++), null)); //imageUrl
-                writeString(bw, getString(row, idx++)); //cardBack
-                writeString(bw, getString(row, idx++)); //type
-                writeString(bw, getString(row, idx++)); //subtype
-                writeString(bw, getString(row, idx++)); //packName
-                writeInteger(bw, getInteger(row, idx++)); //deckbuilderQuantity
-                writeString(bw, getString(row, idx++)); //setUuid
-                writeInteger(bw, getInteger(row, idx++)); //numberInPack
-                writeString(bw, getString(row, idx++)); //encounterSet
-                writeInteger(bw, getInteger(row, idx++)); //encounterNumber
-                writeBoolean(bw, getBoolean(row, idx++)); //unique
-                writeBoolean(bw, getBoolean(row, idx++)); //permanent
-                writeBoolean(bw, getBoolean(row, idx++)); //starting
-                writeBoolean(bw, getBoolean(row, idx++)); //exceptional
-                writeBoolean(bw, getBoolean(row, idx++)); //myriad
-                writeString(bw, getString(row, idx++)); //faction
-                writeString(bw, getString(row, idx++)); //traits
-                writeString(bw, getString(row, idx++)); //side
-                writeInteger(bw, getInteger(row, idx++)); //xp
-                writeInteger(bw, getInteger(row, idx++)); //cost
-                writeInteger(bw, getInteger(row, idx++)); //skillWillpower
-                writeInteger(bw, getInteger(row, idx++)); //skillIntellect
-                writeInteger(bw, getInteger(row, idx++)); //skillCombat
-                writeInteger(bw, getInteger(row, idx++)); //skillAgility
-                writeInteger(bw, getInteger(row, idx++)); //skillWild
-                writeInteger(bw, getInteger(row, idx++)); //health
-                writeBoolean(bw, getBoolean(row, idx++)); //healthPerInvestigator
-                writeInteger(bw, getInteger(row, idx++)); //sanity
-                writeInteger(bw, getInteger(row, idx++)); //uses
-                writeInteger(bw, getInteger(row, idx++)); //enemyDamage
-                writeInteger(bw, getInteger(row, idx++)); //enemyHorror
-                writeInteger(bw, getInteger(row, idx++)); //enemyFight
-                writeInteger(bw, getInteger(row, idx++)); //enemyEvade
-                writeInteger(bw, getInteger(row, idx++)); //shroud
-                writeInteger(bw, getInteger(row, idx++)); //doom
-                writeInteger(bw, getInteger(row, idx++)); //clues
-                writeBoolean(bw, getBoolean(row, idx++)); //cluesFixed
-                writeInteger(bw, getInteger(row, idx++)); //victoryPoints
-                writeInteger(bw, getInteger(row, idx++)); //vengeance
-                writeInteger(bw, getInteger(row, idx++)); //stage
-                writeBoolean(bw, nvl(getBoolean(row, idx++), false)); //parallelContent
-                writeString(bw, nvl(getString(row, idx++), databaseId)); //code
-                writeInteger(bw, nvl(getInteger(row, idx++), 0)); //tabooId
-                writeString(bw, nvl(getString(row, idx++), "None")); //tabooName
-                writeInteger(bw, nvl(getInteger(row, idx++), 0)); //tabooXp
-                writeBoolean(bw, getBoolean(row, idx++)); //action
-                writeBoolean(bw, getBoolean(row, idx++)); //reaction
-                writeBoolean(bw, getBoolean(row, idx++)); //free
-                writeBoolean(bw, getBoolean(row, idx++)); //hasBonded
-                writeInteger(bw, nvl(getInteger(row, idx++), 0)); //concealed
-                writeString(bw, getString(row, idx++)); //concealedId
-                writeString(bw, getString(row, idx++)); //text
-                newLine(bw);
+    private void exportDefaultCards(File imagesDir, TsvWriter tsv, Workbook predefined) throws Exception {
+        var sheet = predefined.getSheetAt(0);
+        for (var row : sheet) {
+            if (row.getRowNum() == 0) {
+                continue;
             }
+            var idx = 0;
+            var databaseId = getString(row, idx++);
+            if (databaseId == null) {
+                continue;
+            }
+            tsv.writeString(databaseId); //databaseId
+            tsv.writeString(getString(row, idx++)); //name
+            tsv.writeString(getImageUrl(imagesDir, getString(row, idx++), null)); //imageUrl
+            tsv.writeString(getString(row, idx++)); //cardBack
+            tsv.writeString(getString(row, idx++)); //type
+            tsv.writeString(getString(row, idx++)); //subtype
+            tsv.writeString(getString(row, idx++)); //packName
+            tsv.writeInteger(getInteger(row, idx++)); //deckbuilderQuantity
+            tsv.writeString(getString(row, idx++)); //setUuid
+            tsv.writeInteger(getInteger(row, idx++)); //numberInPack
+            tsv.writeString(getString(row, idx++)); //encounterSet
+            tsv.writeInteger(getInteger(row, idx++)); //encounterNumber
+            tsv.writeBoolean(getBoolean(row, idx++)); //unique
+            tsv.writeBoolean(getBoolean(row, idx++)); //permanent
+            tsv.writeBoolean(getBoolean(row, idx++)); //starting
+            tsv.writeBoolean(getBoolean(row, idx++)); //exceptional
+            tsv.writeBoolean(getBoolean(row, idx++)); //myriad
+            tsv.writeString(getString(row, idx++)); //faction
+            tsv.writeString(getString(row, idx++)); //traits
+            tsv.writeString(getString(row, idx++)); //side
+            tsv.writeInteger(getInteger(row, idx++)); //xp
+            tsv.writeInteger(getInteger(row, idx++)); //cost
+            tsv.writeInteger(getInteger(row, idx++)); //skillWillpower
+            tsv.writeInteger(getInteger(row, idx++)); //skillIntellect
+            tsv.writeInteger(getInteger(row, idx++)); //skillCombat
+            tsv.writeInteger(getInteger(row, idx++)); //skillAgility
+            tsv.writeInteger(getInteger(row, idx++)); //skillWild
+            tsv.writeInteger(getInteger(row, idx++)); //health
+            tsv.writeBoolean(getBoolean(row, idx++)); //healthPerInvestigator
+            tsv.writeInteger(getInteger(row, idx++)); //sanity
+            tsv.writeInteger(getInteger(row, idx++)); //uses
+            tsv.writeInteger(getInteger(row, idx++)); //enemyDamage
+            tsv.writeInteger(getInteger(row, idx++)); //enemyHorror
+            tsv.writeInteger(getInteger(row, idx++)); //enemyFight
+            tsv.writeInteger(getInteger(row, idx++)); //enemyEvade
+            tsv.writeInteger(getInteger(row, idx++)); //shroud
+            tsv.writeInteger(getInteger(row, idx++)); //doom
+            tsv.writeInteger(getInteger(row, idx++)); //clues
+            tsv.writeBoolean(getBoolean(row, idx++)); //cluesFixed
+            tsv.writeInteger(getInteger(row, idx++)); //victoryPoints
+            tsv.writeInteger(getInteger(row, idx++)); //vengeance
+            tsv.writeInteger(getInteger(row, idx++)); //stage
+            tsv.writeBoolean(nvl(getBoolean(row, idx++), false)); //parallelContent
+            tsv.writeString(nvl(getString(row, idx++), databaseId)); //code
+            tsv.writeInteger(nvl(getInteger(row, idx++), 0)); //tabooId
+            tsv.writeString(nvl(getString(row, idx++), "None")); //tabooName
+            tsv.writeInteger(nvl(getInteger(row, idx++), 0)); //tabooXp
+            tsv.writeBoolean(getBoolean(row, idx++)); //action
+            tsv.writeBoolean(getBoolean(row, idx++)); //reaction
+            tsv.writeBoolean(getBoolean(row, idx++)); //free
+            tsv.writeBoolean(getBoolean(row, idx++)); //hasBonded
+            tsv.writeInteger(nvl(getInteger(row, idx++), 0)); //concealed
+            tsv.writeString(getString(row, idx++)); //concealedId
+            tsv.writeString(getString(row, idx++)); //text
+            tsv.newLine();
         }
     }
 
-    private void exportFrontSide(File imagesDir, BufferedWriter bw, Card c, boolean doubleSided, boolean linked) throws Exception {
+    private void exportFrontSide(File imagesDir, TsvWriter tsv, Card c, boolean doubleSided, boolean linked) throws Exception {
         var cardBack = doubleSided || linked ? "multi_sided" : c.getCardBack();
-        writeString(bw, c.getId()); //databaseId
-        writeString(bw, c.getFrontFullName(true)); //name
-        writeString(bw, getImageUrl(imagesDir, c.getImageId(true), true)); //imageUrl
-        writeString(bw, cardBack); //cardBack
-        writeString(bw, c.getTypeName()); //type
-        writeString(bw, c.getSubtypeName()); //subtype
-        writeString(bw, c.getPackName()); //packName
-        writeInteger(bw, c.getDeckbuilderQuantity()); //deckbuilderQuantity
-        writeString(bw, c.getPackCode()); //setUuid
-        writeInteger(bw, c.getPosition(true)); //numberInPack
-        writeString(bw, c.getEncounterName()); //encounterSet
-        writeInteger(bw, c.getEncounterPosition()); //encounterNumber
-        writeBoolean(bw, c.getIsUnique()); //unique
-        writeBoolean(bw, c.getPermanent()); //permanent
-        writeBoolean(bw, c.getText() != null && c.getText().contains("Starting.")); //starting
-        writeBoolean(bw, c.getExceptional()); //exceptional
-        writeBoolean(bw, c.getMyriad()); //myriad
-        writeString(bw, c.getFactions()); //faction
-        writeString(bw, c.getTraits()); //traits
-        writeString(bw, doubleSided || linked ? "A" : null); //side
-        writeInteger(bw, c.getXp()); //xp
-        writeInteger(bw, c.getCost()); //cost
-        writeInteger(bw, c.getSkillWillpower()); //skillWillpower
-        writeInteger(bw, c.getSkillIntellect()); //skillIntellect
-        writeInteger(bw, c.getSkillCombat()); //skillCombat
-        writeInteger(bw, c.getSkillAgility()); //skillAgility
-        writeInteger(bw, c.getSkillWild()); //skillWild
-        writeInteger(bw, c.getHealth()); //health
-        writeBoolean(bw, c.getHealthPerInvestigator()); //healthPerInvestigator
-        writeInteger(bw, c.getSanity()); //sanity
-        writeInteger(bw, c.getUses()); //uses
-        writeInteger(bw, c.getEnemyDamage()); //enemyDamage
-        writeInteger(bw, c.getEnemyHorror()); //enemyHorror
-        writeInteger(bw, c.getEnemyFight()); //enemyFight
-        writeInteger(bw, c.getEnemyEvade()); //enemyEvade
-        writeInteger(bw, c.getShroud()); //shroud
-        writeInteger(bw, c.getDoom()); //doom
-        writeInteger(bw, c.getClues()); //clues
-        writeBoolean(bw, c.getCluesFixed()); //cluesFixed
-        writeInteger(bw, c.getVictory()); //victoryPoints
-        writeInteger(bw, c.getVengeance()); //vengeance
-        writeInteger(bw, c.getStage()); //stage
-        writeBoolean(bw, c.isParallelContent()); //parallelContent
-        writeString(bw, c.getCode()); //code
-        writeInteger(bw, nvl(c.getTabooSetId(), 0)); //tabooId
-        writeString(bw, nvl(meta.getTabooName(c.getTabooSetId()), "None")); //tabooName
-        writeInteger(bw, nvl(c.getTabooXp(), 0)); //tabooXp
-        writeBoolean(bw, c.getText() != null && c.getText().contains("[action]")); //action
-        writeBoolean(bw, c.getText() != null && c.getText().contains("[reaction]")); //reaction
-        writeBoolean(bw, c.getText() != null && (c.getText().contains("[free]") || c.getText().contains("[fast]"))); //free
-        writeBoolean(bw, config.hasBonded(c)); //hasBonded
-        writeInteger(bw, nvl(c.getConcealed(), 0)); //concealed
-        writeString(bw, c.getConcealedId()); //concealedId
-        writeString(bw, c.getText()); //text
-        newLine(bw);
+        tsv.writeString(c.getId()); //databaseId
+        tsv.writeString(c.getFrontFullName(true)); //name
+        tsv.writeString(getImageUrl(imagesDir, c.getImageId(true), true)); //imageUrl
+        tsv.writeString(cardBack); //cardBack
+        tsv.writeString(c.getTypeName()); //type
+        tsv.writeString(c.getSubtypeName()); //subtype
+        tsv.writeString(c.getPackName()); //packName
+        tsv.writeInteger(c.getDeckbuilderQuantity()); //deckbuilderQuantity
+        tsv.writeString(c.getPackCode()); //setUuid
+        tsv.writeInteger(c.getPosition(true)); //numberInPack
+        tsv.writeString(c.getEncounterName()); //encounterSet
+        tsv.writeInteger(c.getEncounterPosition()); //encounterNumber
+        tsv.writeBoolean(c.getIsUnique()); //unique
+        tsv.writeBoolean(c.getPermanent()); //permanent
+        tsv.writeBoolean(c.getTextFeatures().isStarting()); //starting
+        tsv.writeBoolean(c.getExceptional()); //exceptional
+        tsv.writeBoolean(c.getMyriad()); //myriad
+        tsv.writeString(c.getFactions()); //faction
+        tsv.writeString(c.getTraits()); //traits
+        tsv.writeString(doubleSided || linked ? "A" : null); //side
+        tsv.writeInteger(c.getXp()); //xp
+        tsv.writeInteger(c.getCost()); //cost
+        tsv.writeInteger(c.getSkillWillpower()); //skillWillpower
+        tsv.writeInteger(c.getSkillIntellect()); //skillIntellect
+        tsv.writeInteger(c.getSkillCombat()); //skillCombat
+        tsv.writeInteger(c.getSkillAgility()); //skillAgility
+        tsv.writeInteger(c.getSkillWild()); //skillWild
+        tsv.writeInteger(c.getHealth()); //health
+        tsv.writeBoolean(c.getHealthPerInvestigator()); //healthPerInvestigator
+        tsv.writeInteger(c.getSanity()); //sanity
+        tsv.writeInteger(c.getUses()); //uses
+        tsv.writeInteger(c.getEnemyDamage()); //enemyDamage
+        tsv.writeInteger(c.getEnemyHorror()); //enemyHorror
+        tsv.writeInteger(c.getEnemyFight()); //enemyFight
+        tsv.writeInteger(c.getEnemyEvade()); //enemyEvade
+        tsv.writeInteger(c.getShroud()); //shroud
+        tsv.writeInteger(c.getDoom()); //doom
+        tsv.writeInteger(c.getClues()); //clues
+        tsv.writeBoolean(c.getCluesFixed()); //cluesFixed
+        tsv.writeInteger(c.getVictory()); //victoryPoints
+        tsv.writeInteger(c.getVengeance()); //vengeance
+        tsv.writeInteger(c.getStage()); //stage
+        tsv.writeBoolean(c.isParallelContent()); //parallelContent
+        tsv.writeString(c.getCode()); //code
+        tsv.writeInteger(nvl(c.getTabooSetId(), 0)); //tabooId
+        tsv.writeString(nvl(meta.getTabooName(c.getTabooSetId()), "None")); //tabooName
+        tsv.writeInteger(nvl(c.getTabooXp(), 0)); //tabooXp
+        tsv.writeBoolean(c.getTextFeatures().hasAction()); //action
+        tsv.writeBoolean(c.getTextFeatures().hasReaction()); //reaction
+        tsv.writeBoolean(c.getTextFeatures().hasFree()); //free
+        tsv.writeBoolean(config.hasBonded(c)); //hasBonded
+        tsv.writeInteger(nvl(c.getConcealed(), 0)); //concealed
+        tsv.writeString(c.getConcealedId()); //concealedId
+        tsv.writeString(c.getText()); //text
+        tsv.newLine();
     }
 
-    private void exportBackSide(File imagesDir, BufferedWriter bw, Card c) throws Exception {
-        writeString(bw, c.getId()); //databaseId
-        writeString(bw, c.getBackFullName(true)); //name
-        writeString(bw, getImageUrl(imagesDir, c.getImageId(false), false)); //imageUrl
-        writeString(bw, "multi_sided"); //cardBack
-        writeString(bw, c.getTypeName()); //type
-        writeString(bw, c.getSubtypeName()); //subtype
-        writeString(bw, c.getPackName()); //packName
-        writeInteger(bw, c.getDeckbuilderQuantity()); //deckbuilderQuantity
-        writeString(bw, c.getPackCode()); //setUuid
-        writeInteger(bw, c.getPosition(false)); //numberInPack
-        writeString(bw, c.getEncounterName()); //encounterSet
-        writeInteger(bw, c.getEncounterPosition()); //encounterNumber
-        writeBoolean(bw, c.getIsUnique()); //unique
-        writeBoolean(bw, c.getPermanent()); //permanent
-        writeBoolean(bw, c.getText() != null && c.getText().contains("Starting.")); //starting
-        writeBoolean(bw, c.getExceptional()); //exceptional
-        writeBoolean(bw, c.getMyriad()); //myriad
-        writeString(bw, c.getFactions()); //faction
-        writeString(bw, "Investigator".equals(c.getTypeName()) ? null : nvl(c.getBackTraits(), c.getTraits())); //traits
-        writeString(bw, "B"); //side
-        writeInteger(bw, null); //xp
-        writeInteger(bw, null); //cost
-        writeInteger(bw, null); //skillWillpower
-        writeInteger(bw, null); //skillIntellect
-        writeInteger(bw, null); //skillCombat
-        writeInteger(bw, null); //skillAgility
-        writeInteger(bw, null); //skillWild
-        writeInteger(bw, null); //health
-        writeBoolean(bw, false); //healthPerInvestigator
-        writeInteger(bw, null); //sanity
-        writeInteger(bw, null); //uses
-        writeInteger(bw, null); //enemyDamage
-        writeInteger(bw, null); //enemyHorror
-        writeInteger(bw, null); //enemyFight
-        writeInteger(bw, null); //enemyEvade
-        writeInteger(bw, null); //shroud
-        writeInteger(bw, null); //doom
-        writeInteger(bw, null); //clues
-        writeBoolean(bw, false); //cluesFixed
-        writeInteger(bw, null); //victoryPoints
-        writeInteger(bw, null); //vengeance
-        writeInteger(bw, null); //stage
-        writeBoolean(bw, c.isParallelContent()); //parallelContent
-        writeString(bw, c.getCode()); //code
-        writeInteger(bw, nvl(c.getTabooSetId(), 0)); //tabooId
-        writeString(bw, nvl(meta.getTabooName(c.getTabooSetId()), "None")); //tabooName
-        writeInteger(bw, nvl(c.getTabooXp(), 0)); //tabooXp
-        writeBoolean(bw, c.getBackText() != null && c.getBackText().contains("[action]")); //action
-        writeBoolean(bw, c.getBackText() != null && c.getBackText().contains("[reaction]")); //reaction
-        writeBoolean(bw, c.getBackText() != null && (c.getBackText().contains("[free]") || c.getBackText().contains("[fast]"))); //free
-        writeBoolean(bw, false); //hasBonded
-        writeInteger(bw, 0); //concealed
-        writeString(bw, null); //concealedId
-        writeString(bw, c.getBackText()); //text
-        newLine(bw);
+    private void exportBackSide(File imagesDir, TsvWriter tsv, Card c) throws Exception {
+        tsv.writeString(c.getId()); //databaseId
+        tsv.writeString(c.getBackFullName(true)); //name
+        tsv.writeString(getImageUrl(imagesDir, c.getImageId(false), false)); //imageUrl
+        tsv.writeString("multi_sided"); //cardBack
+        tsv.writeString(c.getTypeName()); //type
+        tsv.writeString(c.getSubtypeName()); //subtype
+        tsv.writeString(c.getPackName()); //packName
+        tsv.writeInteger(c.getDeckbuilderQuantity()); //deckbuilderQuantity
+        tsv.writeString(c.getPackCode()); //setUuid
+        tsv.writeInteger(c.getPosition(false)); //numberInPack
+        tsv.writeString(c.getEncounterName()); //encounterSet
+        tsv.writeInteger(c.getEncounterPosition()); //encounterNumber
+        tsv.writeBoolean(c.getIsUnique()); //unique
+        tsv.writeBoolean(c.getPermanent()); //permanent
+        tsv.writeBoolean(c.getTextFeatures().isStarting()); //starting
+        tsv.writeBoolean(c.getExceptional()); //exceptional
+        tsv.writeBoolean(c.getMyriad()); //myriad
+        tsv.writeString(c.getFactions()); //faction
+        tsv.writeString("Investigator".equals(c.getTypeName()) ? null : nvl(c.getBackTraits(), c.getTraits())); //traits
+        tsv.writeString("B"); //side
+        tsv.writeInteger(null); //xp
+        tsv.writeInteger(null); //cost
+        tsv.writeInteger(null); //skillWillpower
+        tsv.writeInteger(null); //skillIntellect
+        tsv.writeInteger(null); //skillCombat
+        tsv.writeInteger(null); //skillAgility
+        tsv.writeInteger(null); //skillWild
+        tsv.writeInteger(null); //health
+        tsv.writeBoolean(false); //healthPerInvestigator
+        tsv.writeInteger(null); //sanity
+        tsv.writeInteger(null); //uses
+        tsv.writeInteger(null); //enemyDamage
+        tsv.writeInteger(null); //enemyHorror
+        tsv.writeInteger(null); //enemyFight
+        tsv.writeInteger(null); //enemyEvade
+        tsv.writeInteger(null); //shroud
+        tsv.writeInteger(null); //doom
+        tsv.writeInteger(null); //clues
+        tsv.writeBoolean(false); //cluesFixed
+        tsv.writeInteger(null); //victoryPoints
+        tsv.writeInteger(null); //vengeance
+        tsv.writeInteger(null); //stage
+        tsv.writeBoolean(c.isParallelContent()); //parallelContent
+        tsv.writeString(c.getCode()); //code
+        tsv.writeInteger(nvl(c.getTabooSetId(), 0)); //tabooId
+        tsv.writeString(nvl(meta.getTabooName(c.getTabooSetId()), "None")); //tabooName
+        tsv.writeInteger(nvl(c.getTabooXp(), 0)); //tabooXp
+        tsv.writeBoolean(c.getBackTextFeatures().hasAction()); //action
+        tsv.writeBoolean(c.getBackTextFeatures().hasReaction()); //reaction
+        tsv.writeBoolean(c.getBackTextFeatures().hasFree()); //free
+        tsv.writeBoolean(false); //hasBonded
+        tsv.writeInteger(0); //concealed
+        tsv.writeString(null); //concealedId
+        tsv.writeString(c.getBackText()); //text
+        tsv.newLine();
     }
 
-    private void exportLinked(File imagesDir, BufferedWriter bw, Card c, Card cc) throws Exception {
-        writeString(bw, c.getId()); //databaseId: multi_sided must share
-        writeString(bw, cc.getFrontFullName(true)); //name
-        writeString(bw, getImageUrl(imagesDir, c.getImageId(false), false)); //imageUrl
-        writeString(bw, "multi_sided"); //cardBack
-        writeString(bw, cc.getTypeName()); //type
-        writeString(bw, cc.getSubtypeName()); //subtype
-        writeString(bw, cc.getPackName()); //packName
-        writeInteger(bw, cc.getDeckbuilderQuantity()); //deckbuilderQuantity
-        writeString(bw, cc.getPackCode()); //setUuid
-        writeInteger(bw, cc.getPosition(false)); //numberInPack
-        writeString(bw, cc.getEncounterName()); //encounterSet
-        writeInteger(bw, cc.getEncounterPosition()); //encounterNumber
-        writeBoolean(bw, cc.getIsUnique()); //unique
-        writeBoolean(bw, cc.getPermanent()); //permanent
-        writeBoolean(bw, cc.getText() != null && cc.getText().contains("Starting.")); //starting
-        writeBoolean(bw, cc.getExceptional()); //exceptional
-        writeBoolean(bw, cc.getMyriad()); //myriad
-        writeString(bw, cc.getFactions()); //faction
-        writeString(bw, cc.getTraits()); //traits
-        writeString(bw, "B"); //side
-        writeInteger(bw, cc.getXp()); //xp
-        writeInteger(bw, cc.getCost()); //cost
-        writeInteger(bw, cc.getSkillWillpower()); //skillWillpower
-        writeInteger(bw, cc.getSkillIntellect()); //skillIntellect
-        writeInteger(bw, cc.getSkillCombat()); //skillCombat
-        writeInteger(bw, cc.getSkillAgility()); //skillAgility
-        writeInteger(bw, cc.getSkillWild()); //skillWild
-        writeInteger(bw, cc.getHealth()); //health
-        writeBoolean(bw, cc.getHealthPerInvestigator()); //healthPerInvestigator
-        writeInteger(bw, cc.getSanity()); //sanity
-        writeInteger(bw, cc.getUses()); //uses
-        writeInteger(bw, cc.getEnemyDamage()); //enemyDamage
-        writeInteger(bw, cc.getEnemyHorror()); //enemyHorror
-        writeInteger(bw, cc.getEnemyFight()); //enemyFight
-        writeInteger(bw, cc.getEnemyEvade()); //enemyEvade
-        writeInteger(bw, cc.getShroud()); //shroud
-        writeInteger(bw, cc.getDoom()); //doom
-        writeInteger(bw, cc.getClues()); //clues
-        writeBoolean(bw, cc.getCluesFixed()); //cluesFixed
-        writeInteger(bw, cc.getVictory()); //victoryPoints
-        writeInteger(bw, cc.getVengeance()); //vengeance
-        writeInteger(bw, cc.getStage()); //stage
-        writeBoolean(bw, c.isParallelContent()); //parallelContent
-        writeString(bw, c.getCode()); //code
-        writeInteger(bw, nvl(c.getTabooSetId(), 0)); //tabooId
-        writeString(bw, nvl(meta.getTabooName(c.getTabooSetId()), "None")); //tabooName
-        writeInteger(bw, nvl(c.getTabooXp(), 0)); //tabooXp
-        writeBoolean(bw, cc.getText() != null && cc.getText().contains("[action]")); //action
-        writeBoolean(bw, cc.getText() != null && cc.getText().contains("[reaction]")); //reaction
-        writeBoolean(bw, cc.getText() != null && (cc.getText().contains("[free]") || cc.getText().contains("[fast]"))); //free
-        writeBoolean(bw, false); //hasBonded
-        writeInteger(bw, nvl(cc.getConcealed(), 0)); //concealed
-        writeString(bw, cc.getConcealedId()); //concealedId
-        writeString(bw, cc.getText()); //text
-        newLine(bw);
+    private void exportLinked(File imagesDir, TsvWriter tsv, Card c, Card cc) throws Exception {
+        tsv.writeString(c.getId()); //databaseId: multi_sided must share
+        tsv.writeString(cc.getFrontFullName(true)); //name
+        tsv.writeString(getImageUrl(imagesDir, c.getImageId(false), false)); //imageUrl
+        tsv.writeString("multi_sided"); //cardBack
+        tsv.writeString(cc.getTypeName()); //type
+        tsv.writeString(cc.getSubtypeName()); //subtype
+        tsv.writeString(cc.getPackName()); //packName
+        tsv.writeInteger(cc.getDeckbuilderQuantity()); //deckbuilderQuantity
+        tsv.writeString(cc.getPackCode()); //setUuid
+        tsv.writeInteger(cc.getPosition(false)); //numberInPack
+        tsv.writeString(cc.getEncounterName()); //encounterSet
+        tsv.writeInteger(cc.getEncounterPosition()); //encounterNumber
+        tsv.writeBoolean(cc.getIsUnique()); //unique
+        tsv.writeBoolean(cc.getPermanent()); //permanent
+        tsv.writeBoolean(cc.getTextFeatures().isStarting()); //starting
+        tsv.writeBoolean(cc.getExceptional()); //exceptional
+        tsv.writeBoolean(cc.getMyriad()); //myriad
+        tsv.writeString(cc.getFactions()); //faction
+        tsv.writeString(cc.getTraits()); //traits
+        tsv.writeString("B"); //side
+        tsv.writeInteger(cc.getXp()); //xp
+        tsv.writeInteger(cc.getCost()); //cost
+        tsv.writeInteger(cc.getSkillWillpower()); //skillWillpower
+        tsv.writeInteger(cc.getSkillIntellect()); //skillIntellect
+        tsv.writeInteger(cc.getSkillCombat()); //skillCombat
+        tsv.writeInteger(cc.getSkillAgility()); //skillAgility
+        tsv.writeInteger(cc.getSkillWild()); //skillWild
+        tsv.writeInteger(cc.getHealth()); //health
+        tsv.writeBoolean(cc.getHealthPerInvestigator()); //healthPerInvestigator
+        tsv.writeInteger(cc.getSanity()); //sanity
+        tsv.writeInteger(cc.getUses()); //uses
+        tsv.writeInteger(cc.getEnemyDamage()); //enemyDamage
+        tsv.writeInteger(cc.getEnemyHorror()); //enemyHorror
+        tsv.writeInteger(cc.getEnemyFight()); //enemyFight
+        tsv.writeInteger(cc.getEnemyEvade()); //enemyEvade
+        tsv.writeInteger(cc.getShroud()); //shroud
+        tsv.writeInteger(cc.getDoom()); //doom
+        tsv.writeInteger(cc.getClues()); //clues
+        tsv.writeBoolean(cc.getCluesFixed()); //cluesFixed
+        tsv.writeInteger(cc.getVictory()); //victoryPoints
+        tsv.writeInteger(cc.getVengeance()); //vengeance
+        tsv.writeInteger(cc.getStage()); //stage
+        tsv.writeBoolean(c.isParallelContent()); //parallelContent
+        tsv.writeString(c.getCode()); //code
+        tsv.writeInteger(nvl(c.getTabooSetId(), 0)); //tabooId
+        tsv.writeString(nvl(meta.getTabooName(c.getTabooSetId()), "None")); //tabooName
+        tsv.writeInteger(nvl(c.getTabooXp(), 0)); //tabooXp
+        tsv.writeBoolean(cc.getTextFeatures().hasAction()); //action
+        tsv.writeBoolean(cc.getTextFeatures().hasReaction()); //reaction
+        tsv.writeBoolean(cc.getTextFeatures().hasFree()); //free
+        tsv.writeBoolean(false); //hasBonded
+        tsv.writeInteger(nvl(cc.getConcealed(), 0)); //concealed
+        tsv.writeString(cc.getConcealedId()); //concealedId
+        tsv.writeString(cc.getText()); //text
+        tsv.newLine();
     }
 
-    private void exportCards(String predefinedPath, String path, String imagesPath) throws Exception {
+    private void exportCards(Workbook predefined, String path, String imagesPath) throws Exception {
         var file = new File(path);
         var imagesDir = new File(imagesPath);
         try (var fos = new FileOutputStream(file, false);
                 var osw = new OutputStreamWriter(fos, StandardCharsets.UTF_8);
                 var bw = new BufferedWriter(osw)) {
-            writeString(bw, "databaseId");
-            writeString(bw, "name");
-            writeString(bw, "imageUrl");
-            writeString(bw, "cardBack");
-            writeString(bw, "type");
-            writeString(bw, "subtype");
-            writeString(bw, "packName");
-            writeString(bw, "deckbuilderQuantity");
-            writeString(bw, "setUuid");
-            writeString(bw, "numberInPack");
-            writeString(bw, "encounterSet");
-            writeString(bw, "encounterNumber");
-            writeString(bw, "unique");
-            writeString(bw, "permanent");
-            writeString(bw, "starting");
-            writeString(bw, "exceptional");
-            writeString(bw, "myriad");
-            writeString(bw, "faction");
-            writeString(bw, "traits");
-            writeString(bw, "side");
-            writeString(bw, "xp");
-            writeString(bw, "cost");
-            writeString(bw, "skillWillpower");
-            writeString(bw, "skillIntellect");
-            writeString(bw, "skillCombat");
-            writeString(bw, "skillAgility");
-            writeString(bw, "skillWild");
-            writeString(bw, "health");
-            writeString(bw, "healthPerInvestigator");
-            writeString(bw, "sanity");
-            writeString(bw, "uses");
-            writeString(bw, "enemyDamage");
-            writeString(bw, "enemyHorror");
-            writeString(bw, "enemyFight");
-            writeString(bw, "enemyEvade");
-            writeString(bw, "shroud");
-            writeString(bw, "doom");
-            writeString(bw, "clues");
-            writeString(bw, "cluesFixed");
-            writeString(bw, "victoryPoints");
-            writeString(bw, "vengeance");
-            writeString(bw, "stage");
-            writeString(bw, "parallelContent");
-            writeString(bw, "code");
-            writeString(bw, "tabooId");
-            writeString(bw, "tabooName");
-            writeString(bw, "tabooXp");
-            writeString(bw, "action");
-            writeString(bw, "reaction");
-            writeString(bw, "free");
-            writeString(bw, "hasBonded");
-            writeString(bw, "concealed");
-            writeString(bw, "concealedId");
-            writeString(bw, "text");
-            newLine(bw);
-            exportDefaultCards(imagesDir, bw, predefinedPath);
-            for (var c : cards) {
-                if (config.filter(c) == false) {
-                    continue;
-                }
+            var tsv = new TsvWriter(bw);
+            tsv.writeString("databaseId");
+            tsv.writeString("name");
+            tsv.writeString("imageUrl");
+            tsv.writeString("cardBack");
+            tsv.writeString("type");
+            tsv.writeString("subtype");
+            tsv.writeString("packName");
+            tsv.writeString("deckbuilderQuantity");
+            tsv.writeString("setUuid");
+            tsv.writeString("numberInPack");
+            tsv.writeString("encounterSet");
+            tsv.writeString("encounterNumber");
+            tsv.writeString("unique");
+            tsv.writeString("permanent");
+            tsv.writeString("starting");
+            tsv.writeString("exceptional");
+            tsv.writeString("myriad");
+            tsv.writeString("faction");
+            tsv.writeString("traits");
+            tsv.writeString("side");
+            tsv.writeString("xp");
+            tsv.writeString("cost");
+            tsv.writeString("skillWillpower");
+            tsv.writeString("skillIntellect");
+            tsv.writeString("skillCombat");
+            tsv.writeString("skillAgility");
+            tsv.writeString("skillWild");
+            tsv.writeString("health");
+            tsv.writeString("healthPerInvestigator");
+            tsv.writeString("sanity");
+            tsv.writeString("uses");
+            tsv.writeString("enemyDamage");
+            tsv.writeString("enemyHorror");
+            tsv.writeString("enemyFight");
+            tsv.writeString("enemyEvade");
+            tsv.writeString("shroud");
+            tsv.writeString("doom");
+            tsv.writeString("clues");
+            tsv.writeString("cluesFixed");
+            tsv.writeString("victoryPoints");
+            tsv.writeString("vengeance");
+            tsv.writeString("stage");
+            tsv.writeString("parallelContent");
+            tsv.writeString("code");
+            tsv.writeString("tabooId");
+            tsv.writeString("tabooName");
+            tsv.writeString("tabooXp");
+            tsv.writeString("action");
+            tsv.writeString("reaction");
+            tsv.writeString("free");
+            tsv.writeString("hasBonded");
+            tsv.writeString("concealed");
+            tsv.writeString("concealedId");
+            tsv.writeString("text");
+            tsv.newLine();
+            exportDefaultCards(imagesDir, tsv, predefined);
+            var table = cards.getTable();
+            var rows = table.getFiltered();
+            for (var i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+                var c = table.getCard(i);
                 var doubleSided = c.getDoubleSided() != null && c.getDoubleSided();
                 var linked = c.getBackLinkId() != null;
                 if (doubleSided && linked) {
                     log("Double-sided and linked for %s", c.getId());
                 }
-                exportFrontSide(imagesDir, bw, c, doubleSided, linked);
+                exportFrontSide(imagesDir, tsv, c, doubleSided, linked);
                 if (doubleSided) {
-                    exportBackSide(imagesDir, bw, c);
+                    exportBackSide(imagesDir, tsv, c);
                 } else if (linked) {
                     var cc = cards.getCard(c.getBackLinkId());
                     if (cc == null) {
                         log("Missing linked %s for %s", c.getBackLinkId(), c.getId());
                     } else {
-                        exportLinked(imagesDir, bw, c, cc);
+                        exportLinked(imagesDir, tsv, c, cc);
                     }
                 }
             }
@@ -498,20 +513,8 @@ public final class MainExportArkhamBuild {
         bw.newLine();
     }
 
-    private boolean hasTrait(Card c, String[] traits) {
-        if (c.getTraits() == null) {
-            return false;
-        }
-        for (var trait : traits) {
-            if (c.getTraits().contains(trait)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private void fillWeaknessMap(LinkedHashMap<String, ArrayList<String>> map, Card c, Integer qty, String... traits) {
-        if (traits == null || traits.length == 0 || hasTrait(c, traits)) {
+    private void fillWeaknessMap(LinkedHashMap<String, ArrayList<String>> map, Card c, Integer qty, BitSet traits) {
+        if (traits == null || c.hasAnyTrait(traits)) {
             var list = map.get(c.getPackCode());
             if (list == null) {
                 list = new ArrayList<>();
@@ -551,22 +554,26 @@ public final class MainExportArkhamBuild {
             var map = new LinkedHashMap<String, ArrayList<String>>();
             var mapMadnessInjuryPact = new LinkedHashMap<String, ArrayList<String>>();
             var mapMadnessPactCultistDetective = new LinkedHashMap<String, ArrayList<String>>();
-            for (var c : cards) {
-                if (config.filter(c) == false) {
-                    continue;
+            var table = cards.getTable();
+            //core set weaknesses come in two copies
+            var byPack = cards.getByPack();
+            var doubled = byPack.getRows("core");
+            doubled.or(byPack.getRows("rcore"));
+            var madnessInjuryPact = table.getRegistry().getTraitMask("Madness", "Injury", "Pact");
+            var madnessPactCultistDetective = table.getRegistry().getTraitMask("Madness", "Pact", "Cultist", "Detective");
+            var rows = table.getBasicWeaknesses();
+            for (var i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+                var c = table.getCard(i);
+                var qty = c.getDeckbuilderQuantity();
+                if (qty == null) {
+                    qty = 1;
                 }
-                if ("Basic Weakness".equals(c.getSubtypeName())) {
-                    var qty = c.getDeckbuilderQuantity();
-                    if (qty == null) {
-                        qty = 1;
-                    }
-                    if ("core".equals(c.getPackCode()) || "rcore".equals(c.getPackCode())) {
-                        qty *= 2;
-                    }
-                    fillWeaknessMap(map, c, qty);
-                    fillWeaknessMap(mapMadnessInjuryPact, c, qty, "Madness.", "Injury.", "Pact.");
-                    fillWeaknessMap(mapMadnessPactCultistDetective, c, qty, "Madness.", "Pact.", "Cultist.", "Detective.");
+                if (doubled.get(i)) {
+                    qty *= 2;
                 }
+                fillWeaknessMap(map, c, qty, null);
+                fillWeaknessMap(mapMadnessInjuryPact, c, qty, madnessInjuryPact);
+                fillWeaknessMap(mapMadnessPactCultistDetective, c, qty, madnessPactCultistDetective);
             }
             line(bw, "{");
             line(bw, "    \"functions\": {");
@@ -588,13 +595,10 @@ public final class MainExportArkhamBuild {
                 var osw = new OutputStreamWriter(fos, StandardCharsets.UTF_8);
                 var bw = new BufferedWriter(osw)) {
             var cardsWithBonded = new ArrayList<Card>();
-            for (var c : cards) {
-                if (config.filter(c) == false) {
-                    continue;
-                }
-                if (config.hasBonded(c)) {
-                    cardsWithBonded.add(c);
-                }
+            var table = cards.getTable();
+            var rows = table.getBonded();
+            for (var i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+                cardsWithBonded.add(table.getCard(i));
             }
             line(bw, "{");
             line(bw, "    \"functions\": {");
@@ -648,11 +652,12 @@ public final class MainExportArkhamBuild {
             line(bw, "                [\"VALIDATE_NOT_EMPTY\", \"$PREFIX\", \"GET_MINI_ID.$PREFIX\"],");
             line(bw, "                [\"VALIDATE_NOT_EMPTY\", \"$DATABASE_ID\", \"GET_MINI_ID.DATABASE_ID\"],");
             line(bw, "                [\"COND\",");
-            for (var c : cards) {
-                if ((c.getMiniCode() != null || "Investigator".equals(c.getTypeName())) && c.getMiniImageId().equals(c.getId()) == false) {
-                    line(bw, String.format("                    [\"EQUAL\", \"$DATABASE_ID\", \"%s\"],", c.getId()));
-                    line(bw, String.format("                    \"{{$PREFIX}}%s\",", c.getMiniImageId()));
-                }
+            var table = cards.getTable();
+            var rows = table.getMini();
+            for (var i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+                var c = table.getCard(i);
+                line(bw, String.format("                    [\"EQUAL\", \"$DATABASE_ID\", \"%s\"],", c.getId()));
+                line(bw, String.format("                    \"{{$PREFIX}}%s\",", c.getMiniImageId()));
             }
             line(bw, "                    [\"TRUE\"],");
             line(bw, "                    \"{{$PREFIX}}{{$DATABASE_ID}}\"");
@@ -665,65 +670,50 @@ public final class MainExportArkhamBuild {
         }
     }
 
-    private boolean isTransfigurationCard(Card c) {
-        return c != null
-                && (c.getTabooSetId() == null || c.getTabooSetId() == 0)
-                && c.getEncounterCode() == null
-                && c.isParallel() == false
-                && "Investigator".equals(c.getTypeName())
-                && c.getDeckbuilderQuantity() > 0;
-    }
-
-    private String getTransfigurationCardName(Card c) {
-        return String.format("%s (%s)", c.getName(), c.getId());
+    private String getTransfigurationCardName(CardTable table, int row) {
+        return String.format("%s (%s)", table.getName(row), table.getId(row));
     }
 
     private LinkedHashMap<String, String> getTransfigurationNames() {
         var names = new LinkedHashMap<String, String>();
-        for (var c : cards) {
-            if (isTransfigurationCard(c)) {
-                names.put(c.getId(), c.getName());
-            }
+        var table = cards.getTable();
+        var rows = table.getTransfigurations();
+        for (var i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+            names.put(table.getId(i), table.getName(i));
         }
         return names;
     }
 
     private LinkedHashMap<String, String> getTransfigurationNamesReversed() {
         var names = new LinkedHashMap<String, String>();
-        for (var c : cards) {
-            if (isTransfigurationCard(c)) {
-                var name = getTransfigurationCardName(c);
-                if (names.get(name) == null) {
-                    names.put(name, c.getId());
-                }
+        var table = cards.getTable();
+        var rows = table.getTransfigurations();
+        for (var i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+            var name = getTransfigurationCardName(table, i);
+            if (names.get(name) == null) {
+                names.put(name, table.getId(i));
             }
         }
         return names;
     }
 
-    private boolean isRavenQuillCard(Card c) {
-        return c != null
-                && (c.getTabooSetId() == null || c.getTabooSetId() == 0)
-                && "Asset".equals(c.getTypeName())
-                && c.getRealTraits() != null
-                && (c.getRealTraits().contains("Tome.") || c.getRealTraits().contains("Spell."));
-    }
-
     private LinkedHashMap<String, String> getRavenQuillNames() {
         var names = new LinkedHashMap<String, String>();
-        for (var c : cards) {
-            if (isRavenQuillCard(c)) {
-                names.put(c.getId(), c.getName());
-            }
+        var table = cards.getTable();
+        var rows = table.getRavenQuill();
+        for (var i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+            names.put(table.getId(i), table.getName(i));
         }
         return names;
     }
 
     private TreeMap<String, String> getRavenQuillNamesReversed() {
         var names = new TreeMap<String, String>();
-        for (var c : cards) {
-            if (isRavenQuillCard(c) && names.get(c.getName()) == null) {
-                names.put(c.getName(), c.getId());
+        var table = cards.getTable();
+        var rows = table.getRavenQuill();
+        for (var i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+            if (names.get(table.getName(i)) == null) {
+                names.put(table.getName(i), table.getId(i));
             }
         }
         return names;
@@ -745,22 +735,15 @@ public final class MainExportArkhamBuild {
         }
     }
 
-    private void addTraitNames(Card c, Set<String> traits) {
-        if (c != null && c.getTraits() != null) {
-            var traitArray = c.getTraits().split("\\.");
-            for (var trait : traitArray) {
-                var t = trait.trim();
-                if (t.length() > 0) {
-                    traits.add(t);
-                }
-            }
-        }
-    }
-
     private TreeSet<String> getTraitNames() {
+        var all = cards.stream().parallel()
+                .map(Card::getTraitSet)
+                .filter(Objects::nonNull)
+                .collect(BitSet::new, BitSet::or, BitSet::or);
+        var dictionary = cards.getTable().getRegistry().getTraits();
         var traits = new TreeSet<String>();
-        for (var c : cards) {
-            addTraitNames(c, traits);
+        for (var i = all.nextSetBit(0); i >= 0; i = all.nextSetBit(i + 1)) {
+            traits.add(dictionary.getCode(i));
         }
         return traits;
     }
@@ -901,21 +884,6 @@ public final class MainExportArkhamBuild {
         }
     }
 
-    private LinkedHashMap<String, ArrayList<Card>> getCardsWithErrata() {
-        var map = new LinkedHashMap<String, ArrayList<Card>>();
-        for (var c : cards) {
-            if (c.getTabooSetId() != null && c.getTabooSetId() > 0) {
-                var list = map.get(c.getCode());
-                if (list == null) {
-                    list = new ArrayList<>();
-                    map.put(c.getCode(), list);
-                }
-                list.add(0, c);
-            }
-        }
-        return map;
-    }
-
     private void exportTaboo(String path) throws Exception {
         var file = new File(path);
         if (file.exists() == false) {
@@ -932,16 +900,19 @@ public final class MainExportArkhamBuild {
             line(bw, "                [\"VALIDATE_NOT_EMPTY\", \"$CODE\", \"GET_DATABASE_ID_FOR_TABOO.CODE\"],");
             line(bw, "                [\"VALIDATE_GE0\", \"$TABOO_VALUE\", \"GET_DATABASE_ID_FOR_TABOO.TABOO_VALUE\"],");
             line(bw, "                [\"COND\",");
-            var map = getCardsWithErrata();
-            for (var e : map.entrySet()) {
-                line(bw, "                    [\"EQUAL\", \"$CODE\", \"%s\"],".formatted(e.getKey()));
+            var timeline = cards.getTable().getTimeline();
+            for (var code : timeline.getErrataCodes()) {
+                line(bw, "                    [\"EQUAL\", \"$CODE\", \"%s\"],".formatted(code));
                 line(bw, "                    [\"COND\",");
-                for (var c : e.getValue()) {
+                for (var c : timeline.getVersions(code).reversed()) { //newest version first
+                    if (nvl(c.getTabooSetId(), 0) == 0) {
+                        continue;
+                    }
                     line(bw, "                        [\"GREATER_EQUAL\", \"$TABOO_VALUE\", %d],".formatted(c.getTabooSetId()));
                     line(bw, "                        \"%s\",".formatted(c.getId()));
                 }
                 line(bw, "                        [\"TRUE\"],");
-                line(bw, "                        \"%s\"".formatted(e.getKey()));
+                line(bw, "                        \"%s\"".formatted(code));
                 line(bw, "                    ],");
             }
             line(bw, "                    [\"TRUE\"],");
@@ -999,12 +970,15 @@ public final class MainExportArkhamBuild {
 
     private TreeMap<String, String> getTraits() {
         var translations = new LinkedHashMap<String, Translation>();
-        for (var c : cards) {
-            if (c.getTraits() != null && c.getRealTraits() != null) {
-                var tt = StringUtils.split(c.getTraits(), ".");
-                var rt = StringUtils.split(c.getRealTraits(), ".");
+        var table = cards.getTable();
+        for (var j = 0; j < table.size(); j++) {
+            var cardTraits = table.getTraits(j);
+            var cardRealTraits = table.getRealTraits(j);
+            if (cardTraits != null && cardRealTraits != null) {
+                var tt = StringUtils.split(cardTraits, ".");
+                var rt = StringUtils.split(cardRealTraits, ".");
                 if (tt.length != rt.length) {
-                    log("Different number of traits for %s %s: \"%s\" vs \"%s\"", c.getId(), c.getName(), c.getTraits(), c.getRealTraits());
+                    log("Different number of traits for %s %s: \"%s\" vs \"%s\"", table.getId(j), table.getName(j), cardTraits, cardRealTraits);
                 } else if (tt.length > 0) {
                     for (var i = 0; i < tt.length; i++) {
                         var tti = tt[i].trim();
@@ -1053,23 +1027,63 @@ public final class MainExportArkhamBuild {
         }
     }
 
+    private void logStringPool(Language lng) {
+        var pool = cards.getStringPool();
+        if (pool.size() == 0) {
+            return; //restored from snapshot
+        }
+        stringPoolSaved += pool.getSavedBytes();
+        log("String pool %s: %d distinct, %d duplicates shared, ~%d KB saved (~%d KB total)", lng, pool.size(), pool.getDeduplicated(), pool.getSavedBytes() / 1024, stringPoolSaved / 1024);
+    }
+
+    private interface Export {
+
+        void run() throws Exception;
+
+    }
+
+    private static CompletableFuture<Object> submit(LoadTimer timer, Export export) {
+        return timer.supply(() -> {
+            export.run();
+            return null;
+        });
+    }
+
     public void run() throws Exception {
-        cards = Cards.loadCards(Language.EN);
-        config = cards.getConfiguration();
-        meta = cards.getMetadata();
-        exportCards("run/predefined.xlsx", "run/arkhamhorrorlcg.tsv", "../../cards/arkham/dragncards-arkhamhorrorlcg-plugin/images");
-        exportWeaknesses("../../cards/arkham/dragncards-arkhamhorrorlcg-plugin/jsons/Core Weakness.json");
-        exportBonded("../../cards/arkham/dragncards-arkhamhorrorlcg-plugin/jsons/Core Bonded.json");
-        exportMini("../../cards/arkham/dragncards-arkhamhorrorlcg-plugin/jsons/Core Mini.json");
-        exportRavenQuill("../dragncards-arkhamhorrorlcg-php/raven_quill_en.tsv");
-        exportCustomizationGenerated("../../cards/arkham/dragncards-arkhamhorrorlcg-plugin/jsons/Core Customization Generated.json");
-        exportTaboo("../../cards/arkham/dragncards-arkhamhorrorlcg-plugin/jsons/Core Taboo.json");
+        var timer = new LoadTimer();
+        var itTimer = new LoadTimer();
+        CompletableFuture<Cards> itCards;
+        var predefined = timer.supply(() -> WorkbookFactory.create(new File("run/predefined.xlsx"), null, true));
+        // the workbook is closed after the EN exports, also when loading or exporting fails
+        try (AutoCloseable closePredefined = () -> LoadTimer.join(predefined).close()) {
+            cards = Cards.loadCards(Language.EN, timer);
+            config = cards.getConfiguration();
+            meta = cards.getMetadata();
+            var wb = LoadTimer.join(predefined);
+            timer.report("EN");
+            logStringPool(Language.EN);
+            // loaded cards are frozen, so the exporters (each writing its own file) and the IT load run side by side
+            itCards = timer.supply(() -> Cards.loadCards(Language.IT, itTimer));
+            var exports = new LoadTimer();
+            LoadTimer.join(CompletableFuture.allOf(
+                    submit(exports, () -> exportCards(wb, "run/arkhamhorrorlcg.tsv", "../../cards/arkham/dragncards-arkhamhorrorlcg-plugin/images")),
+                    submit(exports, () -> exportWeaknesses("../../cards/arkham/dragncards-arkhamhorrorlcg-plugin/jsons/Core Weakness.json")),
+                    submit(exports, () -> exportBonded("../../cards/arkham/dragncards-arkhamhorrorlcg-plugin/jsons/Core Bonded.json")),
+                    submit(exports, () -> exportMini("../../cards/arkham/dragncards-arkhamhorrorlcg-plugin/jsons/Core Mini.json")),
+                    submit(exports, () -> exportRavenQuill("../dragncards-arkhamhorrorlcg-php/raven_quill_en.tsv")),
+                    submit(exports, () -> exportCustomizationGenerated("../../cards/arkham/dragncards-arkhamhorrorlcg-plugin/jsons/Core Customization Generated.json")),
+                    submit(exports, () -> exportTaboo("../../cards/arkham/dragncards-arkhamhorrorlcg-plugin/jsons/Core Taboo.json"))));
+        }
         //testImages("es", "../../cards/arkham/dragncards-arkhamhorrorlcg-plugin/images");
-        cards = Cards.loadCards(Language.IT);
+        cards = LoadTimer.join(itCards);
         config = cards.getConfiguration();
         meta = cards.getMetadata();
-        exportRavenQuill("../dragncards-arkhamhorrorlcg-php/raven_quill_it.tsv");
-        exportTraits("../dragncards-arkhamhorrorlcg-php/traits_it.tsv");
+        itTimer.report("IT");
+        logStringPool(Language.IT);
+        var exports = new LoadTimer();
+        LoadTimer.join(CompletableFuture.allOf(
+                submit(exports, () -> exportRavenQuill("../dragncards-arkhamhorrorlcg-php/raven_quill_it.tsv")),
+                submit(exports, () -> exportTraits("../dragncards-arkhamhorrorlcg-php/traits_it.tsv"))));
     }
 
     public static void main(String[] args) {
@@ -26,7 +26,14 @@
  */
 package pl.derwinski.arkham;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.json.JsonMapper;
 import java.io.File;
 import java.net.URI;
 import java.net.http.HttpClient;
@@ -58,6 +65,48 @@ public final class Util {
         throw new UnsupportedOperationException();
     }
 
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamReadFeature.INCLUDE_SOURCE_IN_LOCATION)
+            .build();
+    private static final JsonMapper JSON_MAPPER = JsonMapper.builder(JSON_FACTORY).build();
+
+    public static JsonMapper getJsonMapper() {
+        return JSON_MAPPER;
+    }
+
+    public static JsonNode readTree(File file) throws Exception {
+        return JSON_MAPPER.readTree(file);
+    }
+
+    public static JsonNode readTree(JsonParser p) throws Exception {
+        return JSON_MAPPER.readTree(p);
+    }
+
+    public static JsonParser createParser(File file) throws Exception {
+        return JSON_MAPPER.createParser(file);
+    }
+
+    public static JsonGenerator createGenerator(File file) throws Exception {
+        return JSON_MAPPER.createGenerator(file, JsonEncoding.UTF8);
+    }
+
+    public static JsonParser createParser(JsonNode c) throws Exception {
+        var p = c.traverse(JSON_MAPPER);
+        p.nextToken();
+        return p;
+    }
+
+    public static boolean findField(JsonParser p, String fieldName) throws Exception {
+        JsonToken t;
+        while ((t = p.nextToken()) != null) {
+            if (t == JsonToken.FIELD_NAME && fieldName.equals(p.currentName())) {
+                p.nextToken();
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static String readStringRaw(JsonNode c) {
         if (c == null || c.isNull()) {
             return null;
@@ -70,15 +119,18 @@ public final class Util {
         if (c == null || c.isNull()) {
             return null;
         } else {
-            var s = c.asText();
-            if (s.contains("  ")) {
-                s = s.replace("  ", " ");
-            }
-            if (s.indexOf('\n') != -1) {
-                s = s.replace("\n", "  ");
-            }
-            return s;
+            return normalize(c.asText());
+        }
+    }
+
+    private static String normalize(String s) {
+        if (s.contains("  ")) {
+            s = s.replace("  ", " ");
         }
+        if (s.indexOf('\n') != -1) {
+            s = s.replace("\n", "  ");
+        }
+        return s;
     }
 
     public static String readString(JsonNode p, String fieldName) {
@@ -116,6 +168,60 @@ public final class Util {
         }
     }
 
+    public static String readText(JsonParser c) throws Exception {
+        if (c.currentToken().isStructStart()) {
+            c.skipChildren();
+            return "";
+        } else {
+            return c.getText();
+        }
+    }
+
+    public static String readString(JsonParser c) throws Exception {
+        if (c.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        } else {
+            return normalize(readText(c));
+        }
+    }
+
+    public static Integer readInteger(JsonParser c, String fieldName) throws Exception {
+        if (c.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        } else if (c.currentToken() == JsonToken.VALUE_NUMBER_INT && c.getNumberType() == JsonParser.NumberType.INT) {
+            return c.getIntValue();
+        } else {
+            var s = readText(c);
+            try {
+                return Integer.valueOf(s);
+            } catch (NumberFormatException ex) {
+                log("Error reading Integer field %s: %s", fieldName, s);
+                return null;
+            }
+        }
+    }
+
+    public static Boolean readBoolean(JsonParser c, String fieldName) throws Exception {
+        if (c.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        } else if (c.currentToken() == JsonToken.VALUE_TRUE) {
+            return Boolean.TRUE;
+        } else if (c.currentToken() == JsonToken.VALUE_FALSE) {
+            return Boolean.FALSE;
+        } else {
+            var s = readText(c);
+            switch (s) {
+                case "true":
+                    return Boolean.TRUE;
+                case "false":
+                    return Boolean.FALSE;
+                default:
+                    log("Error reading Boolean field %s: %s", fieldName, s);
+                    return null;
+            }
+        }
+    }
+
     public static ArrayList<String> readStringList(JsonNode p, String fieldName) throws Exception {
         var c = p.get(fieldName);
         if (c.isArray()) {
@@ -132,6 +238,21 @@ public final class Util {
         }
     }
 
+    public static ArrayList<String> readStringList(JsonParser c, String fieldName) throws Exception {
+        if (c.currentToken() == JsonToken.START_ARRAY) {
+            var list = new ArrayList<String>();
+            while (c.nextToken() != JsonToken.END_ARRAY) {
+                list.add(readString(c));
+            }
+            return list;
+        } else {
+            if (c.currentToken() != JsonToken.VALUE_NULL) {
+                log("Error reading StringList field %s: %s", fieldName, readText(c));
+            }
+            return null;
+        }
+    }
+
     public static ArrayList<JsonNode> readJsonNodeList(JsonNode p, String fieldName) throws Exception {
         var c = p.get(fieldName);
         if (c.isArray()) {
@@ -26,356 +26,355 @@
  */
 package pl.derwinski.arkham.json;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import pl.derwinski.arkham.Copyable;
+import pl.derwinski.arkham.Util;
 import static pl.derwinski.arkham.Util.log;
 import static pl.derwinski.arkham.Util.nvl;
-import static pl.derwinski.arkham.Util.readBoolean;
-import static pl.derwinski.arkham.Util.readInteger;
-import static pl.derwinski.arkham.Util.readString;
+import static pl.derwinski.arkham.Util.readText;
 import pl.derwinski.arkham.json.configuration.Configuration;
-import pl.derwinski.arkham.json.metadata.Metadata;
+import pl.derwinski.arkham.json.metadata.MetadataRegistry;
 
 /**
  *
  * @author morvael
  */
-public final class Card implements Comparable<Card>, Copyable<Card> {
+public final class Card implements Comparable<Card>, Copyable<Card>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int CHUNK_SIZE = 256;
+
+    // nullability of the int fields, a set bit means null (the field then holds 0)
+    private static final int NULL_CLUES = 1 << 0;
+    private static final int NULL_COST = 1 << 1;
+    private static final int NULL_DECK_LIMIT = 1 << 2;
+    private static final int NULL_DOOM = 1 << 3;
+    private static final int NULL_ENCOUNTER_POSITION = 1 << 4;
+    private static final int NULL_ENEMY_DAMAGE = 1 << 5;
+    private static final int NULL_ENEMY_EVADE = 1 << 6;
+    private static final int NULL_ENEMY_FIGHT = 1 << 7;
+    private static final int NULL_ENEMY_HORROR = 1 << 8;
+    private static final int NULL_HEALTH = 1 << 9;
+    private static final int NULL_POSITION = 1 << 10;
+    private static final int NULL_QUANTITY = 1 << 11;
+    private static final int NULL_SANITY = 1 << 12;
+    private static final int NULL_SHROUD = 1 << 13;
+    private static final int NULL_SKILL_AGILITY = 1 << 14;
+    private static final int NULL_SKILL_COMBAT = 1 << 15;
+    private static final int NULL_SKILL_INTELLECT = 1 << 16;
+    private static final int NULL_SKILL_WILD = 1 << 17;
+    private static final int NULL_SKILL_WILLPOWER = 1 << 18;
+    private static final int NULL_STAGE = 1 << 19;
+    private static final int NULL_TABOO_SET_ID = 1 << 20;
+    private static final int NULL_TABOO_XP = 1 << 21;
+    private static final int NULL_VENGEANCE = 1 << 22;
+    private static final int NULL_VICTORY = 1 << 23;
+    private static final int NULL_XP = 1 << 24;
+    private static final int NULL_CONCEALED = 1 << 25;
+    private static final int NULL_FRONT_POSITION = 1 << 26;
+    private static final int NULL_BACK_POSITION = 1 << 27;
+    private static final int NULL_ALL = (1 << 28) - 1;
+    private static final int NULL_TABOO_COMPARED = NULL_ALL & ~(NULL_TABOO_SET_ID | NULL_FRONT_POSITION | NULL_BACK_POSITION);
+
+    private static final FieldBinder<Card, CardContext> BINDER = new FieldBinder<Card, CardContext>("Card")
+            .string("back_flavor", (o, x, v) -> o.backFlavor = v)
+            .string("real_back_flavor", (o, x, v) -> {
+                o.realBackFlavor = v;
+                o.backFlavor = nvl(o.backFlavor, v);
+            })
+            .string("back_illustrator", (o, x, v) -> o.backIllustrator = x.canonical(v))
+            .string("back_link_id", (o, x, v) -> o.backLinkId = v)
+            .string("back_name", (o, x, v) -> o.backName = v)
+            .string("real_back_name", (o, x, v) -> {
+                o.realBackName = v;
+                o.backName = nvl(o.backName, v);
+            })
+            .string("back_subname", (o, x, v) -> o.backSubname = v)
+            .string("real_back_subname", (o, x, v) -> {
+                o.realBackSubname = v;
+                o.backSubname = nvl(o.backSubname, v);
+            })
+            .string("back_text", (o, x, v) -> o.backText = v)
+            .string("real_back_text", (o, x, v) -> {
+                o.realBackText = v;
+                o.backText = nvl(o.backText, v);
+            })
+            .string("back_traits", (o, x, v) -> o.backTraits = x.canonical(v))
+            .string("real_back_traits", (o, x, v) -> {
+                o.realBackTraits = x.canonical(v);
+                o.backTraits = nvl(o.backTraits, o.realBackTraits);
+            })
+            .bool("clues_fixed", (o, x, v) -> o.cluesFixed = nvl(v, false))
+            .integer("clues", (o, x, v) -> o.clues = o.set(v, NULL_CLUES))
+            .string("code", (o, x, v) -> o.code = v)
+            .integer("cost", (o, x, v) -> o.cost = o.set(v, NULL_COST))
+            .integer("deck_limit", (o, x, v) -> o.deckLimit = o.set(v, NULL_DECK_LIMIT))
+            .bool("doom_per_investigator", (o, x, v) -> o.doomPerInvestigator = nvl(v, false))
+            .integer("doom", (o, x, v) -> o.doom = o.set(v, NULL_DOOM))
+            .bool("double_sided", (o, x, v) -> o.doubleSided = nvl(v, false))
+            .string("encounter_code", (o, x, v) -> o.encounterOrdinal = x.getRegistry().internEncounter(v))
+            .integer("encounter_position", (o, x, v) -> o.encounterPosition = o.set(v, NULL_ENCOUNTER_POSITION))
+            .integer("enemy_damage", (o, x, v) -> o.enemyDamage = o.set(v, NULL_ENEMY_DAMAGE))
+            .bool("enemy_evade_per_investigator", (o, x, v) -> o.enemyEvadePerInvestigator = nvl(v, false))
+            .integer("enemy_evade", (o, x, v) -> o.enemyEvade = o.set(v, NULL_ENEMY_EVADE))
+            .bool("enemy_fight_per_investigator", (o, x, v) -> o.enemyFightPerInvestigator = nvl(v, false))
+            .integer("enemy_fight", (o, x, v) -> o.enemyFight = o.set(v, NULL_ENEMY_FIGHT))
+            .integer("enemy_horror", (o, x, v) -> o.enemyHorror = o.set(v, NULL_ENEMY_HORROR))
+            .string("errata_date", (o, x, v) -> o.errataDate = x.canonical(v))
+            .bool("exceptional", (o, x, v) -> o.exceptional = nvl(v, false))
+            .bool("exile", (o, x, v) -> o.exile = nvl(v, false))
+            .string("faction2_code", (o, x, v) -> o.faction2Ordinal = x.getRegistry().internFaction(v))
+            .string("faction3_code", (o, x, v) -> o.faction3Ordinal = x.getRegistry().internFaction(v))
+            .string("faction_code", (o, x, v) -> o.factionOrdinal = x.getRegistry().internFaction(v))
+            .string("flavor", (o, x, v) -> o.flavor = v)
+            .string("real_flavor", (o, x, v) -> {
+                o.realFlavor = v;
+                o.flavor = nvl(o.flavor, v);
+            })
+            .bool("health_per_investigator", (o, x, v) -> o.healthPerInvestigator = nvl(v, false))
+            .integer("health", (o, x, v) -> o.health = o.set(v, NULL_HEALTH))
+            .bool("hidden", (o, x, v) -> o.hidden = nvl(v, false))
+            .string("id", (o, x, v) -> o.id = v)
+            .string("illustrator", (o, x, v) -> o.illustrator = x.canonical(v))
+            .bool("is_unique", (o, x, v) -> o.isUnique = nvl(v, false))
+            .bool("linked", (o, x, v) -> o.linked = nvl(v, false))
+            .string("locale", (o, x, v) -> o.locale = x.canonical(v))
+            .bool("myriad", (o, x, v) -> o.myriad = nvl(v, false))
+            .string("name", (o, x, v) -> o.name = v)
+            .string("real_name", (o, x, v) -> {
+                o.realName = v;
+                o.name = nvl(o.name, v);
+            })
+            .bool("official", (o, x, v) -> o.official = nvl(v, true))
+            .string("pack_code", (o, x, v) -> o.packOrdinal = x.getRegistry().internPack(v))
+            .bool("permanent", (o, x, v) -> o.permanent = nvl(v, false))
+            .integer("position", (o, x, v) -> o.position = o.set(v, NULL_POSITION))
+            .integer("quantity", (o, x, v) -> o.quantity = o.set(v, NULL_QUANTITY))
+            .integer("sanity", (o, x, v) -> o.sanity = o.set(v, NULL_SANITY))
+            .bool("shroud_per_investigator", (o, x, v) -> o.shroudPerInvestigator = nvl(v, false))
+            .integer("shroud", (o, x, v) -> o.shroud = o.set(v, NULL_SHROUD))
+            .integer("skill_agility", (o, x, v) -> o.skillAgility = o.set(v, NULL_SKILL_AGILITY))
+            .integer("skill_combat", (o, x, v) -> o.skillCombat = o.set(v, NULL_SKILL_COMBAT))
+            .integer("skill_intellect", (o, x, v) -> o.skillIntellect = o.set(v, NULL_SKILL_INTELLECT))
+            .integer("skill_wild", (o, x, v) -> o.skillWild = o.set(v, NULL_SKILL_WILD))
+            .integer("skill_willpower", (o, x, v) -> o.skillWillpower = o.set(v, NULL_SKILL_WILLPOWER))
+            .string("slot", (o, x, v) -> o.slot = x.canonical(v))
+            .string("real_slot", (o, x, v) -> {
+                o.realSlot = x.canonical(v);
+                o.slot = nvl(o.slot, o.realSlot);
+            })
+            .integer("stage", (o, x, v) -> o.stage = o.set(v, NULL_STAGE))
+            .string("subname", (o, x, v) -> o.subname = v)
+            .string("real_subname", (o, x, v) -> {
+                o.realSubname = v;
+                o.subname = nvl(o.subname, v);
+            })
+            .string("subtype_code", (o, x, v) -> o.subtypeOrdinal = x.getRegistry().internSubtype(v))
+            .integer("taboo_set_id", (o, x, v) -> o.tabooSetId = o.set(v, NULL_TABOO_SET_ID))
+            .integer("taboo_xp", (o, x, v) -> o.tabooXp = o.set(v, NULL_TABOO_XP))
+            .string("text", (o, x, v) -> o.text = v)
+            .string("real_text", (o, x, v) -> {
+                o.realText = v;
+                o.text = nvl(o.text, v);
+            })
+            .string("traits", (o, x, v) -> o.traits = x.canonical(v))
+            .string("real_traits", (o, x, v) -> {
+                o.realTraits = x.canonical(v);
+                o.traits = nvl(o.traits, o.realTraits);
+            })
+            .string("type_code", (o, x, v) -> o.typeOrdinal = x.getRegistry().internType(v))
+            .integer("vengeance", (o, x, v) -> o.vengeance = o.set(v, NULL_VENGEANCE))
+            .integer("victory", (o, x, v) -> o.victory = o.set(v, NULL_VICTORY))
+            .integer("xp", (o, x, v) -> o.xp = o.set(v, NULL_XP))
+            .integer("concealed", (o, x, v) -> o.concealed = o.set(v, NULL_CONCEALED))
+            .string("concealedId", (o, x, v) -> o.concealedId = v)
+            .string("back_type", (o, x, v) -> o.backType = x.canonical(v))
+            .string("reprint_of", (o, x, v) -> o.reprintOf = v)
+            .string("updated_at", (o, x, v) -> o.updatedAt = v)
+            .ignore("abbreviation",
+                    "alt_art_investigator",
+                    "alternate_of_code",
+                    "attachments",
+                    "bonded_count",
+                    "bonded_to",
+                    "customization_change",
+                    "customization_options",
+                    "customization_text",
+                    "deck_options",
+                    "deck_requirements",
+                    "duplicate_of_code",
+                    "heals_damage",
+                    "heals_horror",
+                    "pack_position",
+                    "preview",
+                    "real_customization_change",
+                    "real_customization_text",
+                    "real_taboo_text_change",
+                    "restrictions",
+                    "side_deck_options",
+                    "side_deck_requirements",
+                    "starts_in_hand",
+                    "starts_in_play",
+                    "sticky_mulligan",
+                    "taboo_text_change",
+                    "tags");
+
+    public static boolean isIgnoredField(String fieldName) {
+        return BINDER.isIgnored(fieldName);
+    }
+
+    public static SortedSet<String> getIgnoredFields() {
+        return BINDER.getIgnored();
+    }
+
+    public static ArrayList<Card> readCards(Configuration configuration, CardContext context, JsonNode c) throws Exception {
+        if (c.isArray()) {
+            try (var p = Util.createParser(c)) {
+                return readCards(configuration, context, p);
+            }
+        } else {
+            if (c.isNull() == false) {
+                log("Error reading Card array: %s", c.asText());
+            }
+            return null;
+        }
+    }
 
-    private static final HashSet<String> unhandled = new HashSet<>();
+    public static ArrayList<Card> readCards(Configuration configuration, CardContext context, JsonParser c) throws Exception {
+        return readCards(configuration, context, c, null);
+    }
 
-    public static ArrayList<Card> readCards(Configuration configuration, Metadata metadata, JsonNode c) throws Exception {
-        if (c.isArray()) {
+    public static ArrayList<Card> readCards(Configuration configuration, CardContext context, JsonParser c, ForkJoinPool pool) throws Exception {
+        if (c.currentToken() == JsonToken.START_ARRAY) {
             var result = new ArrayList<Card>();
-            for (var i = 0; i < c.size(); i++) {
-                var o = readCard(configuration, metadata, c.get(i));
-                configuration.override(metadata, o);
-                if (configuration.isIgnored(o) == false) {
-                    result.add(o);
+            if (pool == null) {
+                c.nextToken();
+                readElements(configuration, context, c, result);
+            } else {
+                // copy chunks of the array into token buffers, decode them in parallel and stitch them back in source order
+                var chunks = new ArrayList<ForkJoinTask<ArrayList<Card>>>();
+                var chunk = new TokenBuffer(c);
+                var size = 0;
+                while (c.nextToken() != JsonToken.END_ARRAY) {
+                    chunk.copyCurrentStructure(c);
+                    if (++size == CHUNK_SIZE) {
+                        chunks.add(pool.submit(readChunk(configuration, context, chunk)));
+                        chunk = new TokenBuffer(c);
+                        size = 0;
+                    }
+                }
+                if (size > 0) {
+                    chunks.add(pool.submit(readChunk(configuration, context, chunk)));
+                }
+                for (var task : chunks) {
+                    result.addAll(task.get());
                 }
             }
-            configuration.process(metadata, result);
+            configuration.process(context, result);
             return result;
         } else {
-            if (c.isNull() == false) {
-                log("Error reading Card array: %s", c.asText());
+            if (c.currentToken() != JsonToken.VALUE_NULL) {
+                log("Error reading Card array: %s", readText(c));
             }
             return null;
         }
     }
 
-    private static Card readCard(Configuration configuration, Metadata metadata, JsonNode c, Card o) throws Exception {
-        var it = c.fieldNames();
-        while (it.hasNext()) {
-            var fieldName = it.next();
-            switch (fieldName) {
-                case "back_flavor":
-                    o.backFlavor = readString(c, fieldName);
-                    break;
-                case "real_back_flavor":
-                    o.realBackFlavor = readString(c, fieldName);
-                    o.backFlavor = nvl(o.backFlavor, o.realBackFlavor);
-                    break;
-                case "back_illustrator":
-                    o.backIllustrator = readString(c, fieldName);
-                    break;
-                case "back_link_id":
-                    o.backLinkId = readString(c, fieldName);
-                    break;
-                case "back_name":
-                    o.backName = readString(c, fieldName);
-                    break;
-                case "real_back_name":
-                    o.realBackName = readString(c, fieldName);
-                    o.backName = nvl(o.backName, o.realBackName);
-                    break;
-                case "back_subname":
-                    o.backSubname = readString(c, fieldName);
-                    break;
-                case "real_back_subname":
-                    o.realBackSubname = readString(c, fieldName);
-                    o.backSubname = nvl(o.backSubname, o.realBackSubname);
-                    break;
-                case "back_text":
-                    o.backText = readString(c, fieldName);
-                    break;
-                case "real_back_text":
-                    o.realBackText = readString(c, fieldName);
-                    o.backText = nvl(o.backText, o.realBackText);
-                    break;
-                case "back_traits":
-                    o.backTraits = readString(c, fieldName);
-                    break;
-                case "real_back_traits":
-                    o.realBackTraits = readString(c, fieldName);
-                    o.backTraits = nvl(o.backTraits, o.realBackTraits);
-                    break;
-                case "clues_fixed":
-                    o.cluesFixed = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "clues":
-                    o.clues = readInteger(c, fieldName);
-                    break;
-                case "code":
-                    o.code = readString(c, fieldName);
-                    break;
-                case "cost":
-                    o.cost = readInteger(c, fieldName);
-                    break;
-                case "deck_limit":
-                    o.deckLimit = readInteger(c, fieldName);
-                    break;
-                case "doom_per_investigator":
-                    o.doomPerInvestigator = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "doom":
-                    o.doom = readInteger(c, fieldName);
-                    break;
-                case "double_sided":
-                    o.doubleSided = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "encounter_code":
-                    o.encounterCode = readString(c, fieldName);
-                    o.encounterName = metadata.getEncounterName(o.encounterCode);
-                    break;
-                case "encounter_position":
-                    o.encounterPosition = readInteger(c, fieldName);
-                    break;
-                case "enemy_damage":
-                    o.enemyDamage = readInteger(c, fieldName);
-                    break;
-                case "enemy_evade_per_investigator":
-                    o.enemyEvadePerInvestigator = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "enemy_evade":
-                    o.enemyEvade = readInteger(c, fieldName);
-                    break;
-                case "enemy_fight_per_investigator":
-                    o.enemyFightPerInvestigator = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "enemy_fight":
-                    o.enemyFight = readInteger(c, fieldName);
-                    break;
-                case "enemy_horror":
-                    o.enemyHorror = readInteger(c, fieldName);
-                    break;
-                case "errata_date":
-                    o.errataDate = readString(c, fieldName);
-                    break;
-                case "exceptional":
-                    o.exceptional = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "exile":
-                    o.exile = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "faction2_code":
-                    o.faction2Code = readString(c, fieldName);
-                    o.faction2Name = metadata.getFactionName(o.faction2Code);
-                    break;
-                case "faction3_code":
-                    o.faction3Code = readString(c, fieldName);
-                    o.faction3Name = metadata.getFactionName(o.faction3Code);
-                    break;
-                case "faction_code":
-                    o.factionCode = readString(c, fieldName);
-                    o.factionName = metadata.getFactionName(o.factionCode);
-                    break;
-                case "flavor":
-                    o.flavor = readString(c, fieldName);
-                    break;
-                case "real_flavor":
-                    o.realFlavor = readString(c, fieldName);
-                    o.flavor = nvl(o.flavor, o.realFlavor);
-                    break;
-                case "health_per_investigator":
-                    o.healthPerInvestigator = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "health":
-                    o.health = readInteger(c, fieldName);
-                    break;
-                case "hidden":
-                    o.hidden = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "id":
-                    o.id = readString(c, fieldName);
-                    break;
-                case "illustrator":
-                    o.illustrator = readString(c, fieldName);
-                    break;
-                case "is_unique":
-                    o.isUnique = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "linked":
-                    o.linked = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "locale":
-                    o.locale = readString(c, fieldName);
-                    break;
-                case "myriad":
-                    o.myriad = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "name":
-                    o.name = readString(c, fieldName);
-                    break;
-                case "real_name":
-                    o.realName = readString(c, fieldName);
-                    o.name = nvl(o.name, o.realName);
-                    break;
-                case "official":
-                    o.official = nvl(readBoolean(c, fieldName), true);
-                    break;
-                case "pack_code":
-                    o.packCode = readString(c, fieldName);
-                    o.packName = metadata.getPackName(o.packCode);
-                    break;
-                case "permanent":
-                    o.permanent = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "position":
-                    o.position = readInteger(c, fieldName);
-                    break;
-                case "quantity":
-                    o.quantity = readInteger(c, fieldName);
-                    break;
-                case "sanity":
-                    o.sanity = readInteger(c, fieldName);
-                    break;
-                case "shroud_per_investigator":
-                    o.shroudPerInvestigator = nvl(readBoolean(c, fieldName), false);
-                    break;
-                case "shroud":
-                    o.shroud = readInteger(c, fieldName);
-                    break;
-                case "skill_agility":
-                    o.skillAgility = readInteger(c, fieldName);
-                    break;
-                case "skill_combat":
-                    o.skillCombat = readInteger(c, fieldName);
-                    break;
-                case "skill_intellect":
-                    o.skillIntellect = readInteger(c, fieldName);
-                    break;
-                case "skill_wild":
-                    o.skillWild = readInteger(c, fieldName);
-                    break;
-                case "skill_willpower":
-                    o.skillWillpower = readInteger(c, fieldName);
-                    break;
-                case "slot":
-                    o.slot = readString(c, fieldName);
-                    break;
-                case "real_slot":
-                    o.realSlot = readString(c, fieldName);
-                    o.slot = nvl(o.slot, o.realSlot);
-                    break;
-                case "stage":
-                    o.stage = readInteger(c, fieldName);
-                    break;
-                case "subname":
-                    o.subname = readString(c, fieldName);
-                    break;
-                case "real_subname":
-                    o.realSubname = readString(c, fieldName);
-                    o.subname = nvl(o.subname, o.realSubname);
-                    break;
-                case "subtype_code":
-                    o.subtypeCode = readString(c, fieldName);
-                    o.subtypeName = metadata.getSubtypeName(o.subtypeCode);
-                    break;
-                case "taboo_set_id":
-                    o.tabooSetId = readInteger(c, fieldName);
-                    break;
-                case "taboo_xp":
-                    o.tabooXp = readInteger(c, fieldName);
-                    break;
-                case "text":
-                    o.text = readString(c, fieldName);
-                    break;
-                case "real_text":
-                    o.realText = readString(c, fieldName);
-                    o.text = nvl(o.text, o.realText);
-                    break;
-                case "traits":
-                    o.traits = readString(c, fieldName);
-                    break;
-                case "real_traits":
-                    o.realTraits = readString(c, fieldName);
-                    o.traits = nvl(o.traits, o.realTraits);
-                    break;
-                case "type_code":
-                    o.typeCode = readString(c, fieldName);
-                    o.typeName = metadata.getTypeName(o.typeCode);
-                    break;
-                case "vengeance":
-                    o.vengeance = readInteger(c, fieldName);
-                    break;
-                case "victory":
-                    o.victory = readInteger(c, fieldName);
-                    break;
-                case "xp":
-                    o.xp = readInteger(c, fieldName);
-                    break;
-                case "concealed":
-                    o.concealed = readInteger(c, fieldName);
-                    break;
-                case "concealedId":
-                    o.concealedId = readString(c, fieldName);
-                    break;
-                case "back_type":
-                    o.backType = readString(c, fieldName);
-                    break;
-                case "reprint_of":
-                    o.reprintOf = readString(c, fieldName);
-                    break;
-                // ignored fields
-                case "abbreviation":
-                case "alt_art_investigator":
-                case "alternate_of_code":
-                case "attachments":
-                case "bonded_count":
-                case "bonded_to":
-                case "customization_change":
-                case "customization_options":
-                case "customization_text":
-                case "deck_options":
-                case "deck_requirements":
-                case "duplicate_of_code":
-                case "heals_damage":
-                case "heals_horror":
-                case "pack_position":
-                case "preview":
-                case "real_customization_change":
-                case "real_customization_text":
-                case "real_taboo_text_change":
-                case "restrictions":
-                case "side_deck_options":
-                case "side_deck_requirements":
-                case "starts_in_hand":
-                case "starts_in_play":
-                case "sticky_mulligan":
-                case "taboo_text_change":
-                case "tags":
-                case "updated_at":
-                    break;
-                default:
-                    if (unhandled.add(fieldName)) {
-                        log("Unhandled field name in Card: %s (%s : %s)", fieldName, c.get(fieldName), c.get(fieldName).getNodeType());
-                    }
-                    break;
+    private static Callable<ArrayList<Card>> readChunk(Configuration configuration, CardContext context, TokenBuffer chunk) {
+        return () -> {
+            var result = new ArrayList<Card>();
+            try (var p = chunk.asParser()) {
+                p.nextToken();
+                readElements(configuration, context, p, result);
+            }
+            return result;
+        };
+    }
+
+    private static void readElements(Configuration configuration, CardContext context, JsonParser c, ArrayList<Card> result) throws Exception {
+        // reads elements until the end of the array (or of the chunk)
+        while (c.currentToken() != null && c.currentToken() != JsonToken.END_ARRAY) {
+            var o = context.getCache() != null ? readCachedCard(configuration, context, c) : readOverriddenCard(configuration, context, c);
+            if (configuration.isIgnored(o) == false) {
+                result.add(o);
+            }
+            c.nextToken();
+        }
+    }
+
+    private static Card readOverriddenCard(Configuration configuration, CardContext context, JsonParser c) throws Exception {
+        var o = readCard(configuration, context, c);
+        configuration.override(context, o);
+        return o;
+    }
+
+    private static Card readCachedCard(Configuration configuration, CardContext context, JsonParser c) throws Exception {
+        // buffer the card, peek at id and updated_at, decode only when the cached state is missing or outdated
+        var buffer = new TokenBuffer(c);
+        buffer.copyCurrentStructure(c);
+        String id = null;
+        String updatedAt = null;
+        try (var p = buffer.asParser()) {
+            p.nextToken();
+            while (p.nextToken() == JsonToken.FIELD_NAME) {
+                var fieldName = p.currentName();
+                p.nextToken();
+                switch (fieldName) {
+                    case "id":
+                        id = p.currentToken() == JsonToken.VALUE_STRING ? p.getText() : null;
+                        break;
+                    case "updated_at":
+                        updatedAt = p.currentToken() == JsonToken.VALUE_STRING ? p.getText() : null;
+                        break;
+                    default:
+                        p.skipChildren();
+                        break;
+                }
             }
         }
+        var o = context.getCache().reuse(id, updatedAt, context.getRegistry());
+        if (o == null) {
+            try (var p = buffer.asParser()) {
+                p.nextToken();
+                o = readOverriddenCard(configuration, context, p);
+            }
+            context.getCache().store(id, updatedAt, o);
+        }
+        return o;
+    }
+
+    private static Card readCard(Configuration configuration, CardContext context, JsonParser c, Card o) throws Exception {
+        if (o.registry == null) {
+            o.registry = context.getRegistry();
+        }
+        BINDER.read(o, context, c);
         o.cardBack = configuration.getCardBack(o);
+        o.updateTraits();
+        o.updateTextFeatures();
+        o.fingerprint();
+        o.updateSortOrder();
         return o;
     }
 
-    public static Card readCard(Configuration configuration, Metadata metadata, JsonNode c) throws Exception {
+    public static Card readCard(Configuration configuration, CardContext context, JsonNode c) throws Exception {
         if (c.isObject()) {
-            return readCard(configuration, metadata, c, new Card());
+            try (var p = Util.createParser(c)) {
+                return readCard(configuration, context, p, new Card());
+            }
         } else {
             if (c.isNull() == false) {
                 log("Error reading Card object: %s", c.asText());
@@ -384,6 +383,17 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
         }
     }
 
+    public static Card readCard(Configuration configuration, CardContext context, JsonParser c) throws Exception {
+        if (c.currentToken() == JsonToken.START_OBJECT) {
+            return readCard(configuration, context, c, new Card());
+        } else {
+            if (c.currentToken() != JsonToken.VALUE_NULL) {
+                log("Error reading Card object: %s", readText(c));
+            }
+            return null;
+        }
+    }
+
     private String backFlavor;
     private String realBackFlavor;
     private String backIllustrator;
@@ -394,122 +404,130 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
     private String realBackSubname;
     private String backText;
     private String realBackText;
+    private CardTextFeatures backTextFeatures = CardTextFeatures.NONE;
     private String backTraits;
     private String realBackTraits;
-    private Boolean cluesFixed = false;
-    private Integer clues;
+    private boolean cluesFixed = false;
+    private int clues;
     private String code;
-    private Integer cost;
-    private Integer deckLimit;
-    private Boolean doomPerInvestigator = false;
-    private Integer doom;
-    private Boolean doubleSided = false;
-    private String encounterCode;
-    private String encounterName;
-    private Integer encounterPosition;
-    private Integer enemyDamage;
-    private Boolean enemyEvadePerInvestigator = false;
-    private Integer enemyEvade;
-    private Boolean enemyFightPerInvestigator = false;
-    private Integer enemyFight;
-    private Integer enemyHorror;
+    private int cost;
+    private int deckLimit;
+    private boolean doomPerInvestigator = false;
+    private int doom;
+    private boolean doubleSided = false;
+    private int encounterOrdinal;
+    private int encounterPosition;
+    private int enemyDamage;
+    private boolean enemyEvadePerInvestigator = false;
+    private int enemyEvade;
+    private boolean enemyFightPerInvestigator = false;
+    private int enemyFight;
+    private int enemyHorror;
     private String errataDate;
-    private Boolean exceptional = false;
-    private Boolean exile = false;
-    private String faction2Code;
-    private String faction2Name;
-    private String faction3Code;
-    private String faction3Name;
-    private String factionCode;
-    private String factionName;
+    private boolean exceptional = false;
+    private boolean exile = false;
+    private int faction2Ordinal;
+    private int faction3Ordinal;
+    private int factionOrdinal;
     private String flavor;
     private String realFlavor;
-    private Boolean healthPerInvestigator = false;
-    private Integer health;
-    private Boolean hidden = false;
+    private boolean healthPerInvestigator = false;
+    private int health;
+    private boolean hidden = false;
     private String id;
     private String illustrator;
-    private Boolean isUnique = false;
-    private Boolean linked = false;
+    private boolean isUnique = false;
+    private boolean linked = false;
     private String locale;
-    private Boolean myriad = false;
+    private boolean myriad = false;
     private String name;
     private String realName;
-    private Boolean official = true;
-    private String packCode;
-    private String packName;
-    private Boolean permanent = false;
-    private Integer position;
-    private Integer quantity;
-    private Integer sanity;
-    private Boolean shroudPerInvestigator = false;
-    private Integer shroud;
-    private Integer skillAgility;
-    private Integer skillCombat;
-    private Integer skillIntellect;
-    private Integer skillWild;
-    private Integer skillWillpower;
+    private boolean official = true;
+    private int packOrdinal;
+    private String packNameOverride;
+    private boolean permanent = false;
+    private int position;
+    private int quantity;
+    private int sanity;
+    private boolean shroudPerInvestigator = false;
+    private int shroud;
+    private int skillAgility;
+    private int skillCombat;
+    private int skillIntellect;
+    private int skillWild;
+    private int skillWillpower;
     private String slot;
     private String realSlot;
-    private Integer stage;
+    private int stage;
     private String subname;
     private String realSubname;
-    private String subtypeCode;
-    private String subtypeName;
-    private Integer tabooSetId;
-    private Integer tabooXp;
+    private int subtypeOrdinal;
+    private int tabooSetId;
+    private int tabooXp;
     private String text;
     private String realText;
+    private CardTextFeatures textFeatures = CardTextFeatures.NONE;
     private String traits;
     private String realTraits;
-    private String typeCode;
-    private String typeName;
-    private Integer vengeance;
-    private Integer victory;
-    private Integer xp;
-    private Integer concealed;
+    private BitSet traitSet;
+    private BitSet realTraitSet;
+    private int typeOrdinal;
+    private int vengeance;
+    private int victory;
+    private int xp;
+    private int concealed;
     private String concealedId;
     private String backType;
     private String reprintOf;
+    private String updatedAt;
+    private MetadataRegistry registry;
+    private int nulls = NULL_ALL;
+    // card holding the content fields, this card unless it is a delta clone
+    private Card base = this;
+    private long fingerprintHigh;
+    private long fingerprintLow;
+    private boolean frozen;
     //
     private String cardBack;
     private boolean parallel;
     private String frontId;
-    private Integer frontPosition;
+    private int frontPosition;
     private String backId;
-    private Integer backPosition;
+    private int backPosition;
     private String sortId;
     private int sortAdd;
     private String miniCode;
     private boolean parallelContent;
 
-    private Long sortOrder;
+    private long sortOrder;
+    private long sortOrderError; //NO_CODE or FAILED until reported, 0 otherwise
 
     public Card() {
 
     }
 
     public Card tabooClone(int tabooSetId) {
-        Card c = copy();
+        Card c = delta();
         c.id = "%s-%d".formatted(code, tabooSetId);
-        c.tabooSetId = tabooSetId;
+        c.tabooSetId = c.set(tabooSetId, NULL_TABOO_SET_ID);
+        c.updateSortOrder();
         return c;
     }
 
     public Card parallelClone(Card back, String sortId, int sortAdd, String miniCode) {
-        this.hidden = null;
-        back.hidden = null;
-        Card c = copy();
+        this.unhide();
+        back.unhide();
+        Card c = delta();
         c.parallel = true;
         c.frontId = id;
-        c.frontPosition = position;
+        c.frontPosition = c.set(get(base.position, NULL_POSITION), NULL_FRONT_POSITION);
         c.backId = back.id;
-        c.backPosition = back.position;
+        c.backPosition = c.set(back.get(back.base.position, NULL_POSITION), NULL_BACK_POSITION);
         c.sortId = sortId;
         c.sortAdd = sortAdd;
         c.miniCode = miniCode;
         c.parallelContent = true;
-        c.tabooSetId = Math.max(nvl(tabooSetId, 0), nvl(back.tabooSetId, 0));
+        c.tabooSetId = c.set(Math.max(tabooSetId, back.tabooSetId), NULL_TABOO_SET_ID);
         //
         c.backFlavor = back.backFlavor;
         c.realBackFlavor = back.realBackFlavor;
@@ -519,6 +537,7 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
         c.realBackSubname = back.realBackSubname;
         c.backText = back.backText;
         c.realBackText = back.realBackText;
+        c.backTextFeatures = back.backTextFeatures;
         c.backTraits = back.backTraits;
         c.realBackTraits = back.realBackTraits;
         c.code = String.format("%s%s", code, back.code);
@@ -527,17 +546,80 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
         } else {
             c.id = String.format("%s%s", code, back.code);
         }
-        c.packCode = back.id.startsWith("9") ? back.packCode : packCode;
-        c.packName = String.format("%s / %s", packName, back.packName);
+        c.packOrdinal = back.id.startsWith("9") ? back.packOrdinal : packOrdinal;
+        c.packNameOverride = String.format("%s / %s", getPackName(), back.getPackName());
+        c.fingerprint();
+        c.updateSortOrder();
         return c;
     }
 
+    private Integer get(int value, int nullBit) {
+        return (nulls & nullBit) != 0 ? null : value;
+    }
+
+    private int set(Integer value, int nullBit) {
+        if (value == null) {
+            nulls |= nullBit;
+            return 0;
+        } else {
+            nulls &= ~nullBit;
+            return value;
+        }
+    }
+
+    private boolean has(int nullBit) {
+        return (nulls & nullBit) == 0;
+    }
+
+    //copies only the fields a clone may change, the content fields are read through base
+    private Card delta() {
+        Card o = new Card();
+        o.base = base;
+        o.backFlavor = backFlavor;
+        o.realBackFlavor = realBackFlavor;
+        o.backLinkId = backLinkId;
+        o.backName = backName;
+        o.realBackName = realBackName;
+        o.backSubname = backSubname;
+        o.realBackSubname = realBackSubname;
+        o.backText = backText;
+        o.realBackText = realBackText;
+        o.backTextFeatures = backTextFeatures;
+        o.backTraits = backTraits;
+        o.realBackTraits = realBackTraits;
+        o.code = code;
+        o.hidden = hidden;
+        o.id = id;
+        o.packOrdinal = packOrdinal;
+        o.packNameOverride = packNameOverride;
+        o.tabooSetId = tabooSetId;
+        o.registry = registry;
+        o.nulls = nulls;
+        o.fingerprintHigh = fingerprintHigh;
+        o.fingerprintLow = fingerprintLow;
+        //
+        o.cardBack = cardBack;
+        o.parallel = parallel;
+        o.frontId = frontId;
+        o.frontPosition = frontPosition;
+        o.backId = backId;
+        o.backPosition = backPosition;
+        o.sortId = sortId;
+        o.sortAdd = sortAdd;
+        o.miniCode = miniCode;
+        o.parallelContent = parallelContent;
+        o.sortOrder = sortOrder;
+        o.sortOrderError = sortOrderError;
+        return o;
+    }
+
+    //full copy, also materializes a delta clone into a standalone card
     @Override
     public Card copy() {
         Card o = new Card();
         o.backFlavor = backFlavor;
         o.realBackFlavor = realBackFlavor;
-        o.backIllustrator = backIllustrator;
+        o.backIllustrator = base.backIllustrator;
         o.backLinkId = backLinkId;
         o.backName = backName;
         o.realBackName = realBackName;
@@ -545,83 +627,86 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
         o.realBackSubname = realBackSubname;
         o.backText = backText;
         o.realBackText = realBackText;
+        o.backTextFeatures = backTextFeatures;
         o.backTraits = backTraits;
         o.realBackTraits = realBackTraits;
-        o.cluesFixed = cluesFixed;
-        o.clues = clues;
+        o.cluesFixed = base.cluesFixed;
+        o.clues = base.clues;
         o.code = code;
-        o.cost = cost;
-        o.deckLimit = deckLimit;
-        o.doomPerInvestigator = doomPerInvestigator;
-        o.doom = doom;
-        o.doubleSided = doubleSided;
-        o.encounterCode = encounterCode;
-        o.encounterName = encounterName;
-        o.encounterPosition = encounterPosition;
-        o.enemyDamage = enemyDamage;
-        o.enemyEvadePerInvestigator = enemyEvadePerInvestigator;
-        o.enemyEvade = enemyEvade;
-        o.enemyFightPerInvestigator = enemyFightPerInvestigator;
-        o.enemyFight = enemyFight;
-        o.enemyHorror = enemyHorror;
-        o.errataDate = errataDate;
-        o.exceptional = exceptional;
-        o.exile = exile;
-        o.faction2Code = faction2Code;
-        o.faction2Name = faction2Name;
-        o.faction3Code = faction3Code;
-        o.faction3Name = faction3Name;
-        o.factionCode = factionCode;
-        o.factionName = factionName;
-        o.flavor = flavor;
-        o.realFlavor = realFlavor;
-        o.healthPerInvestigator = healthPerInvestigator;
-        o.health = health;
+        o.cost = base.cost;
+        o.deckLimit = base.deckLimit;
+        o.doomPerInvestigator = base.doomPerInvestigator;
+        o.doom = base.doom;
+        o.doubleSided = base.doubleSided;
+        o.encounterOrdinal = base.encounterOrdinal;
+        o.encounterPosition = base.encounterPosition;
+        o.enemyDamage = base.enemyDamage;
+        o.enemyEvadePerInvestigator = base.enemyEvadePerInvestigator;
+        o.enemyEvade = base.enemyEvade;
+        o.enemyFightPerInvestigator = base.enemyFightPerInvestigator;
+        o.enemyFight = base.enemyFight;
+        o.enemyHorror = base.enemyHorror;
+        o.errataDate = base.errataDate;
+        o.exceptional = base.exceptional;
+        o.exile = base.exile;
+        o.faction2Ordinal = base.faction2Ordinal;
+        o.faction3Ordinal = base.faction3Ordinal;
+        o.factionOrdinal = base.factionOrdinal;
+        o.flavor = base.flavor;
+        o.realFlavor = base.realFlavor;
+        o.healthPerInvestigator = base.healthPerInvestigator;
+        o.health = base.health;
         o.hidden = hidden;
         o.id = id;
-        o.illustrator = illustrator;
-        o.isUnique = isUnique;
-        o.linked = linked;
-        o.locale = locale;
-        o.myriad = myriad;
-        o.name = name;
-        o.realName = realName;
-        o.official = official;
-        o.packCode = packCode;
-        o.packName = packName;
-        o.permanent = permanent;
-        o.position = position;
-        o.quantity = quantity;
-        o.sanity = sanity;
-        o.shroudPerInvestigator = shroudPerInvestigator;
-        o.shroud = shroud;
-        o.skillAgility = skillAgility;
-        o.skillCombat = skillCombat;
-        o.skillIntellect = skillIntellect;
-        o.skillWild = skillWild;
-        o.skillWillpower = skillWillpower;
-        o.slot = slot;
-        o.realSlot = realSlot;
-        o.stage = stage;
-        o.subname = subname;
-        o.realSubname = realSubname;
-        o.subtypeCode = subtypeCode;
-        o.subtypeName = subtypeName;
+        o.illustrator = base.illustrator;
+        o.isUnique = base.isUnique;
+        o.linked = base.linked;
+        o.locale = base.locale;
+        o.myriad = base.myriad;
+        o.name = base.name;
+        o.realName = base.realName;
+        o.official = base.official;
+        o.packOrdinal = packOrdinal;
+        o.packNameOverride = packNameOverride;
+        o.permanent = base.permanent;
+        o.position = base.position;
+        o.quantity = base.quantity;
+        o.sanity = base.sanity;
+        o.shroudPerInvestigator = base.shroudPerInvestigator;
+        o.shroud = base.shroud;
+        o.skillAgility = base.skillAgility;
+        o.skillCombat = base.skillCombat;
+        o.skillIntellect = base.skillIntellect;
+        o.skillWild = base.skillWild;
+        o.skillWillpower = base.skillWillpower;
+        o.slot = base.slot;
+        o.realSlot = base.realSlot;
+        o.stage = base.stage;
+        o.subname = base.subname;
+        o.realSubname = base.realSubname;
+        o.subtypeOrdinal = base.subtypeOrdinal;
         o.tabooSetId = tabooSetId;
-        o.tabooXp = tabooXp;
-        o.text = text;
-        o.realText = realText;
-        o.traits = traits;
-        o.realTraits = realTraits;
-        o.typeCode = typeCode;
-        o.typeName = typeName;
-        o.vengeance = vengeance;
-        o.victory = victory;
-        o.xp = xp;
-        o.concealed = concealed;
-        o.concealedId = concealedId;
-        o.backType = backType;
-        o.reprintOf = reprintOf;
+        o.tabooXp = base.tabooXp;
+        o.text = base.text;
+        o.realText = base.realText;
+        o.textFeatures = base.textFeatures;
+        o.traits = base.traits;
+        o.realTraits = base.realTraits;
+        o.traitSet = base.traitSet;
+        o.realTraitSet = base.realTraitSet;
+        o.typeOrdinal = base.typeOrdinal;
+        o.vengeance = base.vengeance;
+        o.victory = base.victory;
+        o.xp = base.xp;
+        o.concealed = base.concealed;
+        o.concealedId = base.concealedId;
+        o.backType = base.backType;
+        o.reprintOf = base.reprintOf;
+        o.updatedAt = base.updatedAt;
+        o.registry = registry;
+        o.nulls = nulls;
+        o.fingerprintHigh = fingerprintHigh;
+        o.fingerprintLow = fingerprintLow;
         //
         o.cardBack = cardBack;
         o.parallel = parallel;
@@ -633,15 +718,43 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
         o.sortAdd = sortAdd;
         o.miniCode = miniCode;
         o.parallelContent = parallelContent;
+        o.sortOrder = sortOrder;
+        o.sortOrderError = sortOrderError;
         return o;
     }
 
+    //moves the ordinals of a card decoded against another registry (e.g. one restored from CardCache) to the given registry
+    public void rebind(MetadataRegistry target) {
+        checkMutable();
+        if (registry != target) {
+            if (registry != null && base != this) {
+                packOrdinal = target.internPack(getPackCode());
+                base.rebind(target);
+            } else if (registry != null) {
+                encounterOrdinal = target.internEncounter(getEncounterCode());
+                faction2Ordinal = target.internFaction(getFaction2Code());
+                faction3Ordinal = target.internFaction(getFaction3Code());
+                factionOrdinal = target.internFaction(getFactionCode());
+                packOrdinal = target.internPack(getPackCode());
+                subtypeOrdinal = target.internSubtype(getSubtypeCode());
+                typeOrdinal = target.internType(getTypeCode());
+                traitSet = target.getTraitSet(traits);
+                realTraitSet = target.getTraitSet(realTraits);
+            }
+            registry = target;
+        }
+    }
+
+    public MetadataRegistry getRegistry() {
+        return registry;
+    }
+
     public String getBackFlavor() {
         return backFlavor;
     }
 
     public String getBackIllustrator() {
-        return backIllustrator;
+        return base.backIllustrator;
     }
 
     public String getBackLinkId() {
@@ -665,11 +778,11 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
     }
 
     public Boolean getCluesFixed() {
-        return cluesFixed;
+        return base.cluesFixed;
     }
 
     public Integer getClues() {
-        return clues;
+        return get(base.clues, NULL_CLUES);
     }
 
     public String getCode() {
@@ -677,107 +790,123 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
     }
 
     public Integer getCost() {
-        return cost;
+        return get(base.cost, NULL_COST);
     }
 
     public Integer getDeckLimit() {
-        return deckLimit;
+        return get(base.deckLimit, NULL_DECK_LIMIT);
     }
 
     public Boolean getDoomPerInvestigator() {
-        return doomPerInvestigator;
+        return base.doomPerInvestigator;
     }
 
     public Integer getDoom() {
-        return doom;
+        return get(base.doom, NULL_DOOM);
     }
 
     public Boolean getDoubleSided() {
-        return doubleSided;
+        return base.doubleSided;
     }
 
     public String getEncounterCode() {
-        return encounterCode;
+        return base.encounterOrdinal != 0 ? registry.getEncounters().getCode(base.encounterOrdinal) : null;
+    }
+
+    public int getEncounterOrdinal() {
+        return base.encounterOrdinal;
     }
 
     public String getEncounterName() {
-        return encounterName;
+        return base.encounterOrdinal != 0 ? registry.getEncounters().getName(base.encounterOrdinal) : null;
     }
 
     public Integer getEncounterPosition() {
-        return encounterPosition;
+        return get(base.encounterPosition, NULL_ENCOUNTER_POSITION);
     }
 
     public Integer getEnemyDamage() {
-        return enemyDamage;
+        return get(base.enemyDamage, NULL_ENEMY_DAMAGE);
     }
 
     public Boolean getEnemyEvadePerInvestigator() {
-        return enemyEvadePerInvestigator;
+        return base.enemyEvadePerInvestigator;
     }
 
     public Integer getEnemyEvade() {
-        return enemyEvade;
+        return get(base.enemyEvade, NULL_ENEMY_EVADE);
     }
 
     public Boolean getEnemyFightPerInvestigator() {
-        return enemyFightPerInvestigator;
+        return base.enemyFightPerInvestigator;
     }
 
     public Integer getEnemyFight() {
-        return enemyFight;
+        return get(base.enemyFight, NULL_ENEMY_FIGHT);
     }
 
     public Integer getEnemyHorror() {
-        return enemyHorror;
+        return get(base.enemyHorror, NULL_ENEMY_HORROR);
     }
 
     public String getErrataDate() {
-        return errataDate;
+        return base.errataDate;
     }
 
     public Boolean getExceptional() {
-        return exceptional;
+        return base.exceptional;
     }
 
     public Boolean getExile() {
-        return exile;
+        return base.exile;
     }
 
     public String getFaction2Code() {
-        return faction2Code;
+        return base.faction2Ordinal != 0 ? registry.getFactions().getCode(base.faction2Ordinal) : null;
+    }
+
+    public int getFaction2Ordinal() {
+        return base.faction2Ordinal;
     }
 
     public String getFaction2Name() {
-        return faction2Name;
+        return base.faction2Ordinal != 0 ? registry.getFactions().getName(base.faction2Ordinal) : null;
     }
 
     public String getFaction3Code() {
-        return faction3Code;
+        return base.faction3Ordinal != 0 ? registry.getFactions().getCode(base.faction3Ordinal) : null;
+    }
+
+    public int getFaction3Ordinal() {
+        return base.faction3Ordinal;
     }
 
     public String getFaction3Name() {
-        return faction3Name;
+        return base.faction3Ordinal != 0 ? registry.getFactions().getName(base.faction3Ordinal) : null;
     }
 
     public String getFactionCode() {
-        return factionCode;
+        return base.factionOrdinal != 0 ? registry.getFactions().getCode(base.factionOrdinal) : null;
+    }
+
+    public int getFactionOrdinal() {
+        return base.factionOrdinal;
     }
 
     public String getFactionName() {
-        return factionName;
+        return base.factionOrdinal != 0 ? registry.getFactions().getName(base.factionOrdinal) : null;
     }
 
     public String getFlavor() {
-        return flavor;
+        return base.flavor;
     }
 
     public Boolean getHealthPerInvestigator() {
-        return healthPerInvestigator;
+        return base.healthPerInvestigator;
     }
 
     public Integer getHealth() {
-        return health;
+        return get(base.health, NULL_HEALTH);
     }
 
     public Boolean getHidden() {
@@ -789,163 +918,205 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
     }
 
     public String getIllustrator() {
-        return illustrator;
+        return base.illustrator;
     }
 
     public Boolean getIsUnique() {
-        return isUnique;
+        return base.isUnique;
     }
 
     public Boolean getLinked() {
-        return linked;
+        return base.linked;
     }
 
     public String getLocale() {
-        return locale;
+        return base.locale;
     }
 
     public Boolean getMyriad() {
-        return myriad;
+        return base.myriad;
     }
 
     public String getName() {
-        return name;
+        return base.name;
     }
 
     public Boolean getOfficial() {
-        return official;
+        return base.official;
     }
 
     public String getPackCode() {
-        return packCode;
+        return packOrdinal != 0 ? registry.getPacks().getCode(packOrdinal) : null;
+    }
+
+    public int getPackOrdinal() {
+        return packOrdinal;
     }
 
     public String getPackName() {
-        return packName;
+        if (packNameOverride != null) {
+            return packNameOverride;
+        }
+        return packOrdinal != 0 ? registry.getPacks().getName(packOrdinal) : null;
     }
 
     public Boolean getPermanent() {
-        return permanent;
+        return base.permanent;
     }
 
     public Integer getPosition() {
-        return position;
+        return get(base.position, NULL_POSITION);
     }
 
     public Integer getQuantity() {
-        return quantity;
+        return get(base.quantity, NULL_QUANTITY);
     }
 
     public Integer getSanity() {
-        return sanity;
+        return get(base.sanity, NULL_SANITY);
     }
 
     public Boolean getShroudPerInvestigator() {
-        return shroudPerInvestigator;
+        return base.shroudPerInvestigator;
     }
 
     public Integer getShroud() {
-        return shroud;
+        return get(base.shroud, NULL_SHROUD);
     }
 
     public Integer getSkillAgility() {
-        return skillAgility;
+        return get(base.skillAgility, NULL_SKILL_AGILITY);
     }
 
     public Integer getSkillCombat() {
-        return skillCombat;
+        return get(base.skillCombat, NULL_SKILL_COMBAT);
     }
 
     public Integer getSkillIntellect() {
-        return skillIntellect;
+        return get(base.skillIntellect, NULL_SKILL_INTELLECT);
     }
 
     public Integer getSkillWild() {
-        return skillWild;
+        return get(base.skillWild, NULL_SKILL_WILD);
     }
 
     public Integer getSkillWillpower() {
-        return skillWillpower;
+        return get(base.skillWillpower, NULL_SKILL_WILLPOWER);
     }
 
     public String getSlot() {
-        return slot;
+        return base.slot;
     }
 
     public Integer getStage() {
-        return stage;
+        return get(base.stage, NULL_STAGE);
     }
 
     public String getSubname() {
-        return subname;
+        return base.subname;
     }
 
     public String getRealSubname() {
-        return realSubname;
+        return base.realSubname;
     }
 
     public String getSubtypeCode() {
-        return subtypeCode;
+        return base.subtypeOrdinal != 0 ? registry.getSubtypes().getCode(base.subtypeOrdinal) : null;
+    }
+
+    public int getSubtypeOrdinal() {
+        return base.subtypeOrdinal;
     }
 
     public String getSubtypeName() {
-        return subtypeName;
+        return base.subtypeOrdinal != 0 ? registry.getSubtypes().getName(base.subtypeOrdinal) : null;
     }
 
     public Integer getTabooSetId() {
-        return tabooSetId;
+        return get(tabooSetId, NULL_TABOO_SET_ID);
     }
 
     public Integer getTabooXp() {
-        return tabooXp;
+        return get(base.tabooXp, NULL_TABOO_XP);
     }
 
     public String getText() {
-        return text;
+        return base.text;
     }
 
     public String getTraits() {
-        return traits;
+        return base.traits;
     }
 
     public String getRealTraits() {
-        return realTraits;
+        return base.realTraits;
+    }
+
+    //trait ordinals in the registry, null when there are no traits
+    public BitSet getTraitSet() {
+        return base.traitSet;
+    }
+
+    public BitSet getRealTraitSet() {
+        return base.realTraitSet;
+    }
+
+    //exact trait match, name without the trailing dot
+    public boolean hasTrait(String trait) {
+        var ordinal = registry != null ? registry.getTraits().find(trait) : -1;
+        return ordinal > 0 && base.traitSet != null && base.traitSet.get(ordinal);
+    }
+
+    public boolean hasAnyTrait(BitSet mask) {
+        return base.traitSet != null && base.traitSet.intersects(mask);
+    }
+
+    public boolean hasAnyRealTrait(BitSet mask) {
+        return base.realTraitSet != null && base.realTraitSet.intersects(mask);
     }
 
     public String getTypeCode() {
-        return typeCode;
+        return base.typeOrdinal != 0 ? registry.getTypes().getCode(base.typeOrdinal) : null;
+    }
+
+    public int getTypeOrdinal() {
+        return base.typeOrdinal;
     }
 
     public String getTypeName() {
-        return typeName;
+        return base.typeOrdinal != 0 ? registry.getTypes().getName(base.typeOrdinal) : null;
     }
 
     public Integer getVengeance() {
-        return vengeance;
+        return get(base.vengeance, NULL_VENGEANCE);
     }
 
     public Integer getVictory() {
-        return victory;
+        return get(base.victory, NULL_VICTORY);
     }
 
     public Integer getXp() {
-        return xp;
+        return get(base.xp, NULL_XP);
     }
 
     public Integer getConcealed() {
-        return concealed;
+        return get(base.concealed, NULL_CONCEALED);
     }
 
     public String getConcealedId() {
-        return concealedId;
+        return base.concealedId;
     }
 
     public String getBackType() {
-        return backType;
+        return base.backType;
     }
 
     public String getReprintOf() {
-        return reprintOf;
+        return base.reprintOf;
+    }
+
+    public String getUpdatedAt() {
+        return base.updatedAt;
     }
 
     public boolean isParallel() {
@@ -972,70 +1143,265 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
         return nvl(miniCode, code);
     }
 
-    private static final Pattern ID = Pattern.compile("([0-9]+)([a-z])?(?:-([0-9]+))?");
     private static final int BASE_CHAR = (int) '`'; //so that a becomes 1
+    private static final long NO_CODE = Long.MIN_VALUE;
+    private static final long FAILED = Long.MIN_VALUE + 1;
+
+    private void updateTraits() {
+        if (registry != null) {
+            traitSet = registry.getTraitSet(traits);
+            realTraitSet = registry.getTraitSet(realTraits);
+        }
+    }
+
+    private void updateTextFeatures() {
+        textFeatures = CardTextFeatures.scan(text);
+        backTextFeatures = CardTextFeatures.scan(backText);
+    }
+
+    //128-bit hash over the fields compared by contentEquals, registry ordinals hashed by code
+    private void fingerprint() {
+        var h = new CardFingerprint()
+                .string(backFlavor)
+                .string(base.backIllustrator)
+                .string(backLinkId)
+                .string(backName)
+                .string(backSubname)
+                .string(backText)
+                .string(backTraits)
+                .string(code)
+                .string(getEncounterCode())
+                .string(base.errataDate)
+                .string(getFaction2Code())
+                .string(getFaction3Code())
+                .string(getFactionCode())
+                .string(base.flavor)
+                .string(base.illustrator)
+                .string(base.locale)
+                .string(base.name)
+                .string(getPackCode())
+                .string(packNameOverride)
+                .string(base.slot)
+                .string(base.subname)
+                .string(getSubtypeCode())
+                .string(base.text)
+                .string(base.traits)
+                .string(getTypeCode())
+                .bool(base.cluesFixed)
+                .integer(base.clues)
+                .integer(base.cost)
+                .integer(base.deckLimit)
+                .bool(base.doomPerInvestigator)
+                .integer(base.doom)
+                .bool(base.doubleSided)
+                .integer(base.encounterPosition)
+                .integer(base.enemyDamage)
+                .bool(base.enemyEvadePerInvestigator)
+                .integer(base.enemyEvade)
+                .bool(base.enemyFightPerInvestigator)
+                .integer(base.enemyFight)
+                .integer(base.enemyHorror)
+                .bool(base.exceptional)
+                .bool(base.exile)
+                .bool(base.healthPerInvestigator)
+                .integer(base.health)
+                .bool(hidden)
+                .bool(base.isUnique)
+                .bool(base.linked)
+                .bool(base.myriad)
+                .bool(base.official)
+                .bool(base.permanent)
+                .integer(base.position)
+                .integer(base.quantity)
+                .integer(base.sanity)
+                .bool(base.shroudPerInvestigator)
+                .integer(base.shroud)
+                .integer(base.skillAgility)
+                .integer(base.skillCombat)
+                .integer(base.skillIntellect)
+                .integer(base.skillWild)
+                .integer(base.skillWillpower)
+                .integer(base.stage)
+                .integer(base.tabooXp)
+                .integer(base.vengeance)
+                .integer(base.victory)
+                .integer(base.xp)
+                .integer(base.concealed)
+                .string(base.concealedId)
+                .string(base.backType)
+                .string(base.reprintOf)
+                .integer(nulls & NULL_TABOO_COMPARED)
+                .hash();
+        fingerprintHigh = h[0];
+        fingerprintLow = h[1];
+    }
+
+    //parses ([0-9]+)([a-z])?(?:-([0-9]+))? by hand: 2 digits for letter, 3 digits for taboo, 2 digits for sortAdd
+    private static long parseSortOrder(String c, int sortAdd) {
+        if (c == null) {
+            return NO_CODE;
+        }
+        var n = c.length();
+        var i = 0;
+        var cd = 0L;
+        var overflow = false;
+        while (i < n && c.charAt(i) >= '0' && c.charAt(i) <= '9') {
+            var d = c.charAt(i++) - '0';
+            overflow |= cd > (Long.MAX_VALUE - d) / 10;
+            cd = cd * 10 + d;
+        }
+        if (i == 0) {
+            return NO_CODE;
+        }
+        var lt = 0L;
+        if (i < n && c.charAt(i) >= 'a' && c.charAt(i) <= 'z') {
+            lt = c.charAt(i++) - BASE_CHAR;
+        }
+        var tb = 0L;
+        if (i < n && c.charAt(i) == '-') {
+            var start = ++i;
+            while (i < n && c.charAt(i) >= '0' && c.charAt(i) <= '9') {
+                var d = c.charAt(i++) - '0';
+                overflow |= tb > (Long.MAX_VALUE - d) / 10;
+                tb = tb * 10 + d;
+            }
+            if (i == start) {
+                return NO_CODE;
+            }
+        }
+        if (i < n) {
+            return NO_CODE;
+        }
+        if (overflow) {
+            return FAILED;
+        }
+        return cd * 10000000L + lt * 100000L + tb * 100L + sortAdd;
+    }
+
+    private void updateSortOrder() {
+        var so = parseSortOrder(nvl(sortId, id), sortAdd);
+        if (so == NO_CODE || so == FAILED) {
+            sortOrder = 0L;
+            sortOrderError = so;
+        } else {
+            sortOrder = so;
+            sortOrderError = 0L;
+        }
+    }
 
-    private long getSortOrder() {
-        if (sortOrder == null) {
-            var c = nvl(sortId, id);
-            if (c == null) {
-                log("No code for %s %s", id, name);
-                sortOrder = 0L;
+    //problems are reported when the card is first sorted (or frozen unsorted), so ignored cards and intermediate states stay quiet
+    private void reportSortOrder() {
+        if (sortOrderError != 0L) {
+            checkMutable();
+            if (sortOrderError == NO_CODE) {
+                log("No code for %s %s", id, base.name);
             } else {
-                var m = ID.matcher(c);
-                if (m.matches() == false) {
-                    log("No code for %s %s", id, name);
-                    sortOrder = 0L;
-                } else {
-                    try {
-                        var cd = Long.valueOf(nvl(m.group(1), "0"));
-                        var lt = (long) (nvl(m.group(2), "`").charAt(0) - BASE_CHAR);
-                        var tb = Long.valueOf(nvl(m.group(3), "0"));
-                        sortOrder = cd * 10000000L + lt * 100000L + tb * 100L + sortAdd; //2 digits for letter, 3 digits for taboo, 2 digits for sortAdd
-                    } catch (Exception ex) {
-                        log("Failed to calculate code for %s %s", id, name);
-                        sortOrder = 0L;
+                log("Failed to calculate code for %s %s", id, base.name);
+            }
+            sortOrderError = 0L;
+        }
+    }
+
+    /**
+     * Stable sort by sort order. Sort order and list position are packed into
+     * one long and sorted as primitives, orders that do not fit fall back to
+     * compareTo.
+     */
+    public static void sort(List<Card> cards) {
+        var n = cards.size();
+        if (n < 2) {
+            return;
+        }
+        var bits = 32 - Integer.numberOfLeadingZeros(n - 1);
+        var limit = 1L << (63 - bits);
+        var source = cards.toArray(Card[]::new);
+        for (var c : source) {
+            c.reportSortOrder();
+        }
+        var keys = new long[n];
+        for (var i = 0; i < n; i++) {
+            var so = source[i].sortOrder;
+            if (so < 0 || so >= limit) {
+                cards.sort(null);
+                return;
+            }
+            keys[i] = so << bits | i;
+        }
+        Arrays.sort(keys);
+        var mask = (1L << bits) - 1;
+        for (var i = 0; i < n; i++) {
+            cards.set(i, source[(int) (keys[i] & mask)]);
+        }
+    }
+
+    /**
+     * Stable k-way merge of lists already in sort order, on equal sort orders
+     * the earlier list goes first (same result as sorting the concatenation).
+     */
+    @SafeVarargs
+    public static ArrayList<Card> merge(List<Card>... runs) {
+        var size = 0;
+        for (var run : runs) {
+            size += run.size();
+        }
+        for (var run : runs) {
+            for (var c : run) {
+                c.reportSortOrder();
+            }
+        }
+        var result = new ArrayList<Card>(size);
+        var pos = new int[runs.length];
+        while (result.size() < size) {
+            var best = -1;
+            var bestOrder = 0L;
+            for (var r = 0; r < runs.length; r++) {
+                if (pos[r] < runs[r].size()) {
+                    var so = runs[r].get(pos[r]).sortOrder;
+                    if (best < 0 || so < bestOrder) {
+                        best = r;
+                        bestOrder = so;
                     }
                 }
             }
+            result.add(runs[best].get(pos[best]++));
         }
-        return sortOrder;
+        return result;
     }
 
     @Override
     public int compareTo(Card o) {
-        return Long.compare(getSortOrder(), o.getSortOrder());
+        return Long.compare(sortOrder, o.sortOrder);
     }
 
     public String getFrontFullName(boolean showSubname) {
-        if (showSubname && subname != null) {
-            return String.format("%s: %s", name, subname);
+        if (showSubname && base.subname != null) {
+            return String.format("%s: %s", base.name, base.subname);
         } else {
-            return name;
+            return base.name;
         }
     }
 
     public String getBackFullName(boolean showSubname) {
-        if ("Investigator".equals(typeName)) {
+        if ("Investigator".equals(getTypeName())) {
             return getFrontFullName(showSubname);
         } else if (showSubname && backSubname != null) {
-            return "%s: %s".formatted(nvl(backName, name), backSubname);
+            return "%s: %s".formatted(nvl(backName, base.name), backSubname);
         } else {
-            return nvl(backName, name);
+            return nvl(backName, base.name);
         }
     }
 
     public String getCardBack() {
-        if (backType == null) {
+        if (base.backType == null) {
             if (cardBack != null) {
                 return cardBack;
-            } else if (encounterCode != null) {
+            } else if (base.encounterOrdinal != 0) {
                 return "Encounter Card";
             } else {
                 return "Player Card";
             }
         } else {
-            switch (backType) {
+            switch (base.backType) {
                 case "player":
                     return "Player Card";
                 case "encounter":
@@ -1045,21 +1411,24 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
                 case "artifact":
                 case "cthulhu_deck":
                 default:
-                    return backType;
+                    return base.backType;
             }
         }
     }
 
     public String getFactions() {
         StringBuilder sb = new StringBuilder();
+        var factionName = getFactionName();
         if (factionName != null && factionName.length() > 0) {
             sb.append(factionName);
             sb.append(". ");
         }
+        var faction2Name = getFaction2Name();
         if (faction2Name != null && faction2Name.length() > 0) {
             sb.append(faction2Name);
             sb.append(". ");
         }
+        var faction3Name = getFaction3Name();
         if (faction3Name != null && faction3Name.length() > 0) {
             sb.append(faction3Name);
             sb.append(". ");
@@ -1073,62 +1442,58 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
     }
 
     public Integer getDeckbuilderQuantity() {
-        if (tabooSetId != null && tabooSetId > 0) {
+        if (tabooSetId > 0) {
             return 0;
-        } else if (deckLimit != null) {
-            return deckLimit;
-        } else if ("Investigator".equals(typeName)) {
+        } else if (has(NULL_DECK_LIMIT)) {
+            return base.deckLimit;
+        } else if ("Investigator".equals(getTypeName())) {
             return 1;
-        } else if (encounterCode != null) {
+        } else if (base.encounterOrdinal != 0) {
             return 0;
-        } else if (quantity != null) {
-            return quantity;
+        } else if (has(NULL_QUANTITY)) {
+            return base.quantity;
         } else {
             log("No quantity for %s", id);
             return null;
         }
     }
 
-    private static final Pattern USES = Pattern.compile("Uses \\(([0-9X]+) ", Pattern.MULTILINE);
-
     public Integer getUses() {
-        if (text != null && text.contains("Uses (")) {
-            Matcher m = USES.matcher(text);
-            if (m.find()) {
-                String value = m.group(1);
-                if ("X".equals(value)) {
-                    return -2;
-                } else {
-                    return Integer.valueOf(m.group(1));
-                }
-            }
+        var value = base.textFeatures.getUses();
+        if (value == null) {
+            return null;
+        } else if ("X".equals(value)) {
+            return -2;
+        } else {
+            return Integer.valueOf(value);
         }
-        return null;
     }
 
-    private static final Pattern BONDED = Pattern.compile("Bonded \\(([^)]+)\\)", Pattern.MULTILINE);
-
     public String getBondedTo() {
-        if (text != null && text.contains("Bonded (")) {
-            Matcher m = BONDED.matcher(text);
-            if (m.find()) {
-                return m.group(1);
-            }
-        }
-        return null;
+        return base.textFeatures.getBondedTo();
+    }
+
+    public CardTextFeatures getTextFeatures() {
+        return base.textFeatures;
+    }
+
+    public CardTextFeatures getBackTextFeatures() {
+        return backTextFeatures;
     }
 
     public Integer getPosition(boolean front) {
         if (parallel) {
-            return front ? frontPosition : backPosition;
+            return front ? get(frontPosition, NULL_FRONT_POSITION) : get(backPosition, NULL_BACK_POSITION);
         } else {
-            return position;
+            return get(base.position, NULL_POSITION);
         }
     }
 
     public void flip(Card c) {
         //this becomes front card
         //c becomes back card
+        checkMutable();
+        c.checkMutable();
         var oldCode = code;
         var oldId = id;
         backLinkId = oldId;
@@ -1139,24 +1504,76 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
         c.code = oldCode;
         c.id = oldId;
         c.hidden = true;
+        fingerprint();
+        c.fingerprint();
     }
 
     public void hide() {
-        this.hidden = true;
+        checkMutable();
+        if (hidden == false) {
+            hidden = true;
+            fingerprint();
+        }
+    }
+
+    private void unhide() {
+        checkMutable();
+        if (hidden) {
+            hidden = false;
+            fingerprint();
+        }
+    }
+
+    /**
+     * Marks the card read-only, called by Cards once loading is done. Writes
+     * after that are reported when assertions are enabled (-ea).
+     */
+    public void freeze() {
+        reportSortOrder();
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkMutable() {
+        assert frozen == false : "Card %s modified after freeze".formatted(id);
     }
 
     public void parallelContent() {
+        checkMutable();
         this.parallelContent = true;
     }
 
     public void miniCode(String miniCode) {
+        checkMutable();
         this.miniCode = miniCode;
         this.parallelContent = true;
     }
 
-    public void override(Configuration configuration, Metadata metadata, JsonNode override) throws Exception {
+    public static FieldBinder.Patch<Card, CardContext> compileOverride(JsonNode override) throws Exception {
         if (override != null && override.isObject()) {
-            readCard(configuration, metadata, override, this);
+            try (var p = Util.createParser(override)) {
+                return BINDER.compile(p);
+            }
+        } else {
+            return null;
+        }
+    }
+
+    public void override(Configuration configuration, CardContext context, FieldBinder.Patch<Card, CardContext> override) {
+        checkMutable();
+        if (override != null) {
+            if (registry == null) {
+                registry = context.getRegistry();
+            }
+            override.apply(this, context);
+            cardBack = configuration.getCardBack(this);
+            updateTraits();
+            updateTextFeatures();
+            fingerprint();
+            updateSortOrder();
         }
     }
 
@@ -1167,10 +1584,24 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
         if (other == null) {
             return false;
         }
+        var result = sameContent(other);
+        assert result == contentEquals(other) : "Fingerprint disagrees with field comparison for %s and %s".formatted(id, other.id);
+        return result;
+    }
+
+    //O(1) comparison of everything tabooEquals looks at, ignores id and taboo set id
+    public boolean sameContent(Card other) {
+        return fingerprintHigh == other.fingerprintHigh && fingerprintLow == other.fingerprintLow;
+    }
+
+    private boolean contentEquals(Card other) {
+        if (((nulls ^ other.nulls) & NULL_TABOO_COMPARED) != 0) {
+            return false;
+        }
         if (!Objects.equals(this.backFlavor, other.backFlavor)) {
             return false;
         }
-        if (!Objects.equals(this.backIllustrator, other.backIllustrator)) {
+        if (!Objects.equals(base.backIllustrator, other.base.backIllustrator)) {
             return false;
         }
         if (!Objects.equals(this.backLinkId, other.backLinkId)) {
@@ -1191,207 +1622,189 @@ public final class Card implements Comparable<Card>, Copyable<Card> {
         if (!Objects.equals(this.code, other.code)) {
             return false;
         }
-        if (!Objects.equals(this.encounterCode, other.encounterCode)) {
-            return false;
-        }
-        if (!Objects.equals(this.encounterName, other.encounterName)) {
-            return false;
-        }
-        if (!Objects.equals(this.errataDate, other.errataDate)) {
-            return false;
-        }
-        if (!Objects.equals(this.faction2Code, other.faction2Code)) {
-            return false;
-        }
-        if (!Objects.equals(this.faction2Name, other.faction2Name)) {
-            return false;
-        }
-        if (!Objects.equals(this.faction3Code, other.faction3Code)) {
-            return false;
-        }
-        if (!Objects.equals(this.faction3Name, other.faction3Name)) {
+        if (base.encounterOrdinal != other.base.encounterOrdinal) {
             return false;
         }
-        if (!Objects.equals(this.factionCode, other.factionCode)) {
+        if (!Objects.equals(base.errataDate, other.base.errataDate)) {
             return false;
         }
-        if (!Objects.equals(this.factionName, other.factionName)) {
+        if (base.faction2Ordinal != other.base.faction2Ordinal) {
             return false;
         }
-        if (!Objects.equals(this.flavor, other.flavor)) {
+        if (base.faction3Ordinal != other.base.faction3Ordinal) {
             return false;
         }
-        if (!Objects.equals(this.illustrator, other.illustrator)) {
+        if (base.factionOrdinal != other.base.factionOrdinal) {
             return false;
         }
-        if (!Objects.equals(this.locale, other.locale)) {
+        if (!Objects.equals(base.flavor, other.base.flavor)) {
             return false;
         }
-        if (!Objects.equals(this.name, other.name)) {
+        if (!Objects.equals(base.illustrator, other.base.illustrator)) {
             return false;
         }
-        if (!Objects.equals(this.packCode, other.packCode)) {
+        if (!Objects.equals(base.locale, other.base.locale)) {
             return false;
         }
-        if (!Objects.equals(this.packName, other.packName)) {
+        if (!Objects.equals(base.name, other.base.name)) {
             return false;
         }
-        if (!Objects.equals(this.slot, other.slot)) {
+        if (this.packOrdinal != other.packOrdinal) {
             return false;
         }
-        if (!Objects.equals(this.subname, other.subname)) {
+        if (!Objects.equals(this.packNameOverride, other.packNameOverride)) {
             return false;
         }
-        if (!Objects.equals(this.subtypeCode, other.subtypeCode)) {
+        if (!Objects.equals(base.slot, other.base.slot)) {
             return false;
         }
-        if (!Objects.equals(this.subtypeName, other.subtypeName)) {
+        if (!Objects.equals(base.subname, other.base.subname)) {
             return false;
         }
-        if (!Objects.equals(this.text, other.text)) {
+        if (base.subtypeOrdinal != other.base.subtypeOrdinal) {
             return false;
         }
-        if (!Objects.equals(this.traits, other.traits)) {
+        if (!Objects.equals(base.text, other.base.text)) {
             return false;
         }
-        if (!Objects.equals(this.typeCode, other.typeCode)) {
+        if (!Objects.equals(base.traits, other.base.traits)) {
             return false;
         }
-        if (!Objects.equals(this.typeName, other.typeName)) {
+        if (base.typeOrdinal != other.base.typeOrdinal) {
             return false;
         }
-        if (!Objects.equals(this.cluesFixed, other.cluesFixed)) {
+        if (base.cluesFixed != other.base.cluesFixed) {
             return false;
         }
-        if (!Objects.equals(this.clues, other.clues)) {
+        if (base.clues != other.base.clues) {
             return false;
         }
-        if (!Objects.equals(this.cost, other.cost)) {
+        if (base.cost != other.base.cost) {
             return false;
         }
-        if (!Objects.equals(this.deckLimit, other.deckLimit)) {
+        if (base.deckLimit != other.base.deckLimit) {
             return false;
         }
-        if (!Objects.equals(this.doomPerInvestigator, other.doomPerInvestigator)) {
+        if (base.doomPerInvestigator != other.base.doomPerInvestigator) {
             return false;
         }
-        if (!Objects.equals(this.doom, other.doom)) {
+        if (base.doom != other.base.doom) {
             return false;
         }
-        if (!Objects.equals(this.doubleSided, other.doubleSided)) {
+        if (base.doubleSided != other.base.doubleSided) {
             return false;
         }
-        if (!Objects.equals(this.encounterPosition, other.encounterPosition)) {
+        if (base.encounterPosition != other.base.encounterPosition) {
             return false;
         }
-        if (!Objects.equals(this.enemyDamage, other.enemyDamage)) {
+        if (base.enemyDamage != other.base.enemyDamage) {
             return false;
         }
-        if (!Objects.equals(this.enemyEvadePerInvestigator, other.enemyEvadePerInvestigator)) {
+        if (base.enemyEvadePerInvestigator != other.base.enemyEvadePerInvestigator) {
             return false;
         }
-        if (!Objects.equals(this.enemyEvade, other.enemyEvade)) {
+        if (base.enemyEvade != other.base.enemyEvade) {
             return false;
         }
-        if (!Objects.equals(this.enemyFightPerInvestigator, other.enemyFightPerInvestigator)) {
+        if (base.enemyFightPerInvestigator != other.base.enemyFightPerInvestigator) {
             return false;
         }
-        if (!Objects.equals(this.enemyFight, other.enemyFight)) {
+        if (base.enemyFight != other.base.enemyFight) {
             return false;
         }
-        if (!Objects.equals(this.enemyHorror, other.enemyHorror)) {
+        if (base.enemyHorror != other.base.enemyHorror) {
             return false;
         }
-        if (!Objects.equals(this.exceptional, other.exceptional)) {
+        if (base.exceptional != other.base.exceptional) {
             return false;
         }
-        if (!Objects.equals(this.exile, other.exile)) {
+        if (base.exile != other.base.exile) {
             return false;
         }
-        if (!Objects.equals(this.healthPerInvestigator, other.healthPerInvestigator)) {
+        if (base.healthPerInvestigator != other.base.healthPerInvestigator) {
             return false;
         }
-        if (!Objects.equals(this.health, other.health)) {
+        if (base.health != other.base.health) {
             return false;
         }
-        if (!Objects.equals(this.hidden, other.hidden)) {
+        if (this.hidden != other.hidden) {
             return false;
         }
-        if (!Objects.equals(this.isUnique, other.isUnique)) {
+        if (base.isUnique != other.base.isUnique) {
             return false;
         }
-        if (!Objects.equals(this.linked, other.linked)) {
+        if (base.linked != other.base.linked) {
             return false;
         }
-        if (!Objects.equals(this.myriad, other.myriad)) {
+        if (base.myriad != other.base.myriad) {
             return false;
         }
-        if (!Objects.equals(this.official, other.official)) {
+        if (base.official != other.base.official) {
             return false;
         }
-        if (!Objects.equals(this.permanent, other.permanent)) {
+        if (base.permanent != other.base.permanent) {
             return false;
         }
-        if (!Objects.equals(this.position, other.position)) {
+        if (base.position != other.base.position) {
             return false;
         }
-        if (!Objects.equals(this.quantity, other.quantity)) {
+        if (base.quantity != other.base.quantity) {
             return false;
         }
-        if (!Objects.equals(this.sanity, other.sanity)) {
+        if (base.sanity != other.base.sanity) {
             return false;
         }
-        if (!Objects.equals(this.shroudPerInvestigator, other.shroudPerInvestigator)) {
+        if (base.shroudPerInvestigator != other.base.shroudPerInvestigator) {
             return false;
         }
-        if (!Objects.equals(this.shroud, other.shroud)) {
+        if (base.shroud != other.base.shroud) {
             return false;
         }
-        if (!Objects.equals(this.skillAgility, other.skillAgility)) {
+        if (base.skillAgility != other.base.skillAgility) {
             return false;
         }
-        if (!Objects.equals(this.skillCombat, other.skillCombat)) {
+        if (base.skillCombat != other.base.skillCombat) {
             return false;
         }
-        if (!Objects.equals(this.skillIntellect, other.skillIntellect)) {
+        if (base.skillIntellect != other.base.skillIntellect) {
             return false;
         }
-        if (!Objects.equals(this.skillWild, other.skillWild)) {
+        if (base.skillWild != other.base.skillWild) {
             return false;
         }
-        if (!Objects.equals(this.skillWillpower, other.skillWillpower)) {
+        if (base.skillWillpower != other.base.skillWillpower) {
             return false;
         }
-        if (!Objects.equals(this.stage, other.stage)) {
+        if (base.stage != other.base.stage) {
             return false;
         }
-        if (!Objects.equals(this.tabooXp, other.tabooXp)) {
+        if (base.tabooXp != other.base.tabooXp) {
             return false;
         }
-        if (!Objects.equals(this.vengeance, other.vengeance)) {
+        if (base.vengeance != other.base.vengeance) {
             return false;
         }
-        if (!Objects.equals(this.victory, other.victory)) {
+        if (base.victory != other.base.victory) {
             return false;
         }
-        if (!Objects.equals(this.xp, other.xp)) {
+        if (base.xp != other.base.xp) {
             return false;
         }
-        if (!Objects.equals(this.concealed, other.concealed)) {
+        if (base.concealed != other.base.concealed) {
             return false;
         }
-        if (!Objects.equals(this.concealedId, other.concealedId)) {
+        if (!Objects.equals(base.concealedId, other.base.concealedId)) {
             return false;
         }
-        if (!Objects.equals(this.backType, other.backType)) {
+        if (!Objects.equals(base.backType, other.base.backType)) {
             return false;
         }
-        return Objects.equals(this.reprintOf, other.reprintOf);
+        return Objects.equals(base.reprintOf, other.base.reprintOf);
     }
 
     @Override
     public String toString() {
-        return String.format("%s %s", id, name);
+        return String.format("%s %s", id, base.name);
     }
 
 }
@@ -0,0 +1,172 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import static pl.derwinski.arkham.Util.log;
+import pl.derwinski.arkham.json.metadata.MetadataRegistry;
+
+/**
+ * Decoded and overridden card state of the previous load, keyed by card id
+ * and tagged with the card's updated_at. Cards whose updated_at did not change
+ * are copied from here instead of being decoded again. Only the ids seen in
+ * the current load are written back, so removed cards drop out.
+ *
+ * @author morvael
+ */
+public final class CardCache {
+
+    private static final int MAGIC = 0x41484343;
+
+    static final class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String updatedAt;
+        private final Card card;
+
+        private Entry(String updatedAt, Card card) {
+            this.updatedAt = updatedAt;
+            this.card = card;
+        }
+
+    }
+
+    @SuppressWarnings("unchecked")
+    public static CardCache read(File file, String key) {
+        if (file.exists()) {
+            try (var ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), 1 << 16))) {
+                ois.setObjectInputFilter(CardsSnapshot.FILTER);
+                if (ois.readInt() != MAGIC) {
+                    log("Ignoring card cache %s: unknown format", file);
+                } else if (key.equals(ois.readUTF()) == false) {
+                    log("Ignoring card cache %s: configuration or metadata changed", file);
+                } else {
+                    return new CardCache((HashMap<String, Entry>) ois.readObject());
+                }
+            } catch (Exception ex) {
+                log("Ignoring card cache %s: %s", file, ex);
+            }
+        }
+        return new CardCache(new HashMap<>());
+    }
+
+    private final HashMap<String, Entry> previous;
+    private final ConcurrentHashMap<String, Entry> current = new ConcurrentHashMap<>();
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder changed = new LongAdder();
+    private final LongAdder touched = new LongAdder();
+    private final LongAdder added = new LongAdder();
+
+    private CardCache(HashMap<String, Entry> previous) {
+        this.previous = previous;
+    }
+
+    public Card reuse(String id, String updatedAt, MetadataRegistry registry) {
+        if (id == null || updatedAt == null) {
+            return null;
+        }
+        var e = previous.get(id);
+        if (e != null && updatedAt.equals(e.updatedAt)) {
+            current.put(id, e);
+            reused.increment();
+            var o = e.card.copy();
+            o.rebind(registry);
+            return o;
+        }
+        return null;
+    }
+
+    //keyed by the raw id and updated_at the lookup in reuse peeks, not by the values after overrides
+    public void store(String id, String updatedAt, Card o) {
+        if (id == null || updatedAt == null) {
+            return;
+        }
+        var e = previous.get(id);
+        if (e == null) {
+            added.increment();
+        } else if (e.card.sameContent(o)) {
+            touched.increment();
+        } else {
+            changed.increment();
+        }
+        current.put(id, new Entry(updatedAt, o.copy()));
+    }
+
+    public long getReused() {
+        return reused.sum();
+    }
+
+    public long getChanged() {
+        return changed.sum();
+    }
+
+    //decoded again because updated_at moved, but with the same content fingerprint
+    public long getTouched() {
+        return touched.sum();
+    }
+
+    public long getAdded() {
+        return added.sum();
+    }
+
+    public long getRemoved() {
+        var removed = 0L;
+        for (var id : previous.keySet()) {
+            if (current.containsKey(id) == false) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public void write(File file, String key) {
+        var tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (var oos = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath()), 1 << 16))) {
+                oos.writeInt(MAGIC);
+                oos.writeUTF(key);
+                oos.writeObject(new HashMap<>(current));
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception ex) {
+            log("Error writing card cache %s: %s", file, ex);
+            tmp.delete();
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json;
+
+import pl.derwinski.arkham.json.metadata.Metadata;
+import pl.derwinski.arkham.json.metadata.MetadataRegistry;
+
+/**
+ * State shared by all cards decoded during one Cards load.
+ *
+ * @author morvael
+ */
+public final class CardContext {
+
+    private final Metadata metadata;
+    private final CardStringPool strings = new CardStringPool();
+    private final CardCache cache;
+
+    public CardContext(Metadata metadata) {
+        this(metadata, null);
+    }
+
+    public CardContext(Metadata metadata, CardCache cache) {
+        this.metadata = metadata;
+        this.cache = cache;
+    }
+
+    public Metadata getMetadata() {
+        return metadata;
+    }
+
+    public MetadataRegistry getRegistry() {
+        return metadata.getRegistry();
+    }
+
+    public CardStringPool getStrings() {
+        return strings;
+    }
+
+    public CardCache getCache() {
+        return cache;
+    }
+
+    public String canonical(String s) {
+        return strings.canonical(s);
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json;
+
+import java.util.Arrays;
+import org.apache.commons.codec.digest.MurmurHash3;
+
+/**
+ * Accumulates card fields into an unambiguous byte sequence (length-prefixed
+ * strings, null distinct from empty) and hashes it to 128 bits.
+ *
+ * @author morvael
+ */
+final class CardFingerprint {
+
+    private byte[] buffer = new byte[1024];
+    private int length;
+
+    private void ensure(int extra) {
+        if (length + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+        }
+    }
+
+    CardFingerprint integer(int value) {
+        ensure(4);
+        buffer[length++] = (byte) (value >>> 24);
+        buffer[length++] = (byte) (value >>> 16);
+        buffer[length++] = (byte) (value >>> 8);
+        buffer[length++] = (byte) value;
+        return this;
+    }
+
+    CardFingerprint bool(boolean value) {
+        ensure(1);
+        buffer[length++] = (byte) (value ? 1 : 0);
+        return this;
+    }
+
+    CardFingerprint string(String value) {
+        if (value == null) {
+            return integer(-1);
+        }
+        var n = value.length();
+        integer(n);
+        ensure(n * 2);
+        for (var i = 0; i < n; i++) {
+            var ch = value.charAt(i);
+            buffer[length++] = (byte) (ch >>> 8);
+            buffer[length++] = (byte) ch;
+        }
+        return this;
+    }
+
+    long[] hash() {
+        return MurmurHash3.hash128x64(buffer, 0, length, 0);
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.ToIntFunction;
+import pl.derwinski.arkham.json.metadata.MetadataRegistry;
+
+/**
+ * Secondary index over CardTable rows, grouping them by a key (pack code,
+ * type code, card code, name...). Each group keeps its rows ascending, so
+ * the cards of a group come out in canonical order. Built in two counting
+ * passes and not modified afterwards.
+ *
+ * @author morvael
+ */
+public final class CardGroupIndex {
+
+    private static final int[] EMPTY = new int[0];
+
+    //groups rows by the ordinal column of a dimension, keys are the dimension codes (null for rows without a value)
+    static CardGroupIndex byOrdinal(CardTable table, int[] column, MetadataRegistry.Dimension dimension) {
+        var keys = new ArrayList<String>(dimension.size());
+        for (var i = 0; i < dimension.size(); i++) {
+            keys.add(dimension.getCode(i));
+        }
+        return new CardGroupIndex(table, column, dimension.size(), dimension::find, keys);
+    }
+
+    //groups rows by a string column, keys in order of first appearance, null values are not indexed
+    static CardGroupIndex byString(CardTable table, String[] column) {
+        var groups = new HashMap<String, Integer>();
+        var keys = new ArrayList<String>();
+        var groupOf = new int[column.length];
+        for (var i = 0; i < column.length; i++) {
+            var key = column[i];
+            if (key == null) {
+                groupOf[i] = -1;
+                continue;
+            }
+            var group = groups.get(key);
+            if (group == null) {
+                group = keys.size();
+                groups.put(key, group);
+                keys.add(key);
+            }
+            groupOf[i] = group;
+        }
+        return new CardGroupIndex(table, groupOf, keys.size(), key -> key != null ? groups.getOrDefault(key, -1) : -1, keys);
+    }
+
+    private final CardTable table;
+    private final int[][] rows;
+    private final ToIntFunction<String> lookup;
+    private final List<String> keys;
+
+    private CardGroupIndex(CardTable table, int[] groupOf, int groupCount, ToIntFunction<String> lookup, List<String> keys) {
+        this.table = table;
+        this.lookup = lookup;
+        this.keys = Collections.unmodifiableList(keys);
+        var counts = new int[groupCount];
+        for (var group : groupOf) {
+            if (group >= 0) {
+                counts[group]++;
+            }
+        }
+        this.rows = new int[groupCount][];
+        for (var i = 0; i < groupCount; i++) {
+            rows[i] = counts[i] > 0 ? new int[counts[i]] : EMPTY;
+            counts[i] = 0;
+        }
+        for (var i = 0; i < groupOf.length; i++) {
+            var group = groupOf[i];
+            if (group >= 0) {
+                rows[group][counts[group]++] = i;
+            }
+        }
+    }
+
+    //shared, do not modify
+    int[] rows(String key) {
+        var group = lookup.applyAsInt(key);
+        return group >= 0 && group < rows.length ? rows[group] : EMPTY;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public int count(String key) {
+        return rows(key).length;
+    }
+
+    //cards of the group in canonical order, empty when the key is unknown
+    public List<Card> get(String key) {
+        return new Group(table, rows(key));
+    }
+
+    public BitSet getRows(String key) {
+        var o = new BitSet(table.size());
+        for (var row : rows(key)) {
+            o.set(row);
+        }
+        return o;
+    }
+
+    private static final class Group extends AbstractList<Card> implements RandomAccess {
+
+        private final CardTable table;
+        private final int[] rows;
+
+        private Group(CardTable table, int[] rows) {
+            this.table = table;
+            this.rows = rows;
+        }
+
+        @Override
+        public Card get(int index) {
+            return table.getCard(rows[index]);
+        }
+
+        @Override
+        public int size() {
+            return rows.length;
+        }
+
+    }
+
+}
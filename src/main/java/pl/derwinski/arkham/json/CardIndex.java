@@ -0,0 +1,161 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json;
+
+import java.util.HashMap;
+
+/**
+ * Card lookup by id. Ids of the form digits, optional lowercase letter and
+ * optional "-" taboo suffix ("01001", "01104b", "02003-7") are packed into a
+ * long and kept in an open-addressing table, anything else goes to a plain
+ * HashMap. Digit counts are part of the key, so "01001" and "1001" differ.
+ *
+ * @author morvael
+ */
+final class CardIndex {
+
+    private static final long NOT_PACKED = 0L;
+
+    //code value 40 bits, code digits 4 bits, letter 5 bits, taboo value 10 bits, taboo digits 2 bits
+    static long pack(String id) {
+        if (id == null) {
+            return NOT_PACKED;
+        }
+        var n = id.length();
+        var i = 0;
+        var code = 0L;
+        while (i < n && i < 12 && id.charAt(i) >= '0' && id.charAt(i) <= '9') {
+            code = code * 10 + (id.charAt(i++) - '0');
+        }
+        var codeDigits = i;
+        if (codeDigits == 0) {
+            return NOT_PACKED;
+        }
+        var letter = 0L;
+        if (i < n && id.charAt(i) >= 'a' && id.charAt(i) <= 'z') {
+            letter = id.charAt(i++) - 'a' + 1;
+        }
+        var taboo = 0L;
+        var tabooDigits = 0;
+        if (i < n && id.charAt(i) == '-') {
+            i++;
+            while (i < n && tabooDigits < 3 && id.charAt(i) >= '0' && id.charAt(i) <= '9') {
+                taboo = taboo * 10 + (id.charAt(i++) - '0');
+                tabooDigits++;
+            }
+            if (tabooDigits == 0) {
+                return NOT_PACKED;
+            }
+        }
+        if (i < n) {
+            return NOT_PACKED;
+        }
+        return code << 21 | (long) codeDigits << 17 | letter << 12 | taboo << 2 | tabooDigits;
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private final HashMap<String, Card> fallback = new HashMap<>();
+    private long[] keys = new long[1024];
+    private String[] ids = new String[1024];
+    private Card[] values = new Card[1024];
+    private int size;
+
+    private int slot(long key) {
+        var mask = keys.length - 1;
+        var i = mix(key) & mask;
+        while (keys[i] != NOT_PACKED && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void grow() {
+        var oldKeys = keys;
+        var oldIds = ids;
+        var oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        ids = new String[oldKeys.length * 2];
+        values = new Card[oldKeys.length * 2];
+        for (var i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != NOT_PACKED) {
+                var j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                ids[j] = oldIds[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    void put(String id, Card card) {
+        var key = pack(id);
+        if (key == NOT_PACKED) {
+            fallback.put(id, card);
+            return;
+        }
+        var i = slot(key);
+        if (keys[i] == NOT_PACKED) {
+            keys[i] = key;
+            ids[i] = id;
+            size++;
+        }
+        values[i] = card;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    Card get(String id) {
+        var key = pack(id);
+        if (key == NOT_PACKED) {
+            return fallback.get(id);
+        }
+        return values[slot(key)];
+    }
+
+    void putAll(HashMap<String, Card> map) {
+        for (var e : map.entrySet()) {
+            put(e.getKey(), e.getValue());
+        }
+    }
+
+    HashMap<String, Card> toMap() {
+        var map = new HashMap<String, Card>(fallback);
+        for (var i = 0; i < keys.length; i++) {
+            if (keys[i] != NOT_PACKED) {
+                map.put(ids[i], values[i]);
+            }
+        }
+        return map;
+    }
+
+}
@@ -0,0 +1,291 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Predicate;
+import pl.derwinski.arkham.json.metadata.Metadata;
+
+/**
+ * Ad-hoc query over the loaded cards, for example
+ * {@code cards.query().faction("seeker").type("asset").anyTrait("Tome", "Spell").xpAtMost(2).tabooSet(8).list()}.
+ * Conditions are combined with and. Conditions on indexed keys (pack, cycle,
+ * encounter, type, subtype, code, name) are planned: the one matching the
+ * fewest rows supplies the candidate rows and everything else is checked on
+ * the CardTable columns of those rows only. Without such a condition all
+ * rows are scanned. Results come out in canonical order.
+ *
+ * @author morvael
+ */
+public final class CardQuery {
+
+    @FunctionalInterface
+    private interface RowFilter {
+
+        boolean test(int row);
+
+    }
+
+    //condition that an index can answer, with the equivalent row filter for when another index is picked
+    private static final class Indexed {
+
+        private final String label;
+        private final int[] rows;
+        private final RowFilter filter;
+
+        private Indexed(String label, int[] rows, RowFilter filter) {
+            this.label = label;
+            this.rows = rows;
+            this.filter = filter;
+        }
+
+    }
+
+    private final CardTable table;
+    private final Metadata metadata;
+    private final ArrayList<Indexed> indexed = new ArrayList<>();
+    private final ArrayList<RowFilter> filters = new ArrayList<>();
+    private final ArrayList<Predicate<Card>> predicates = new ArrayList<>();
+
+    CardQuery(CardTable table, Metadata metadata) {
+        this.table = table;
+        this.metadata = metadata;
+    }
+
+    private CardQuery indexed(String label, CardGroupIndex index, String key, RowFilter filter) {
+        indexed.add(new Indexed(label, index.rows(key), filter));
+        return this;
+    }
+
+    private CardQuery filter(RowFilter filter) {
+        filters.add(filter);
+        return this;
+    }
+
+    public CardQuery pack(String packCode) {
+        var ordinal = table.getRegistry().getPacks().find(packCode);
+        return indexed("pack " + packCode, table.getByPack(), packCode, row -> table.getPackOrdinal(row) == ordinal);
+    }
+
+    public CardQuery cycle(String cycleCode) {
+        var packs = table.getRegistry().getPacks();
+        var byPack = table.getByPack();
+        var ordinals = new BitSet(packs.size());
+        var count = 0;
+        for (var i = 1; i < packs.size(); i++) {
+            if (cycleCode.equals(metadata.getCycleCode(packs.getCode(i)))) {
+                ordinals.set(i);
+                count += byPack.rows(packs.getCode(i)).length;
+            }
+        }
+        var rows = new int[count];
+        var n = 0;
+        for (var i = ordinals.nextSetBit(0); i >= 0; i = ordinals.nextSetBit(i + 1)) {
+            var group = byPack.rows(packs.getCode(i));
+            System.arraycopy(group, 0, rows, n, group.length);
+            n += group.length;
+        }
+        Arrays.sort(rows);
+        indexed.add(new Indexed("cycle " + cycleCode, rows, row -> ordinals.get(table.getPackOrdinal(row))));
+        return this;
+    }
+
+    public CardQuery encounter(String encounterCode) {
+        var ordinal = table.getRegistry().getEncounters().find(encounterCode);
+        return indexed("encounter " + encounterCode, table.getByEncounter(), encounterCode, row -> table.getEncounterOrdinal(row) == ordinal);
+    }
+
+    public CardQuery type(String typeCode) {
+        var ordinal = table.getRegistry().getTypes().find(typeCode);
+        return indexed("type " + typeCode, table.getByType(), typeCode, row -> table.getTypeOrdinal(row) == ordinal);
+    }
+
+    public CardQuery subtype(String subtypeCode) {
+        var ordinal = table.getRegistry().getSubtypes().find(subtypeCode);
+        return indexed("subtype " + subtypeCode, table.getBySubtype(), subtypeCode, row -> table.getSubtypeOrdinal(row) == ordinal);
+    }
+
+    public CardQuery code(String code) {
+        return indexed("code " + code, table.getByCode(), code, row -> code.equals(table.getCode(row)));
+    }
+
+    public CardQuery name(String name) {
+        return indexed("name " + name, table.getByName(), name, row -> name.equals(table.getName(row)));
+    }
+
+    //primary, second or third faction
+    public CardQuery faction(String factionCode) {
+        var ordinal = table.getRegistry().getFactions().find(factionCode);
+        if (ordinal <= 0) {
+            return filter(row -> false);
+        }
+        return filter(row -> table.getFactionOrdinal(row) == ordinal || table.getFaction2Ordinal(row) == ordinal || table.getFaction3Ordinal(row) == ordinal);
+    }
+
+    //at least one of the traits, matched against the untranslated traits
+    public CardQuery anyTrait(String... traits) {
+        var mask = table.getRegistry().getTraitMask(traits);
+        return filter(row -> {
+            var set = traitSet(row);
+            return set != null && set.intersects(mask);
+        });
+    }
+
+    //all of the traits, matched against the untranslated traits
+    public CardQuery allTraits(String... traits) {
+        var dictionary = table.getRegistry().getTraits();
+        var mask = new BitSet();
+        for (var trait : traits) {
+            var ordinal = dictionary.find(trait);
+            if (ordinal <= 0) {
+                return filter(row -> false);
+            }
+            mask.set(ordinal);
+        }
+        return filter(row -> {
+            var set = traitSet(row);
+            if (set == null) {
+                return mask.isEmpty();
+            }
+            for (var i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+                if (set.get(i) == false) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    private BitSet traitSet(int row) {
+        var set = table.getRealTraitSet(row);
+        return set != null ? set : table.getTraitSet(row);
+    }
+
+    //cards with xp in the given range, cards without xp never match
+    public CardQuery xp(int min, int max) {
+        return filter(row -> {
+            var xp = table.getXp(row);
+            return xp != CardTable.NULL_XP && xp >= min && xp <= max;
+        });
+    }
+
+    public CardQuery xpAtMost(int max) {
+        return xp(0, max);
+    }
+
+    //only the version of each code in effect at the taboo set (0 for no taboo)
+    public CardQuery tabooSet(int tabooSetId) {
+        return filter(row -> table.isInEffect(row, tabooSetId));
+    }
+
+    //only cards passing the configuration filter, as exported
+    public CardQuery filtered() {
+        var rows = table.getFiltered();
+        return filter(rows::get);
+    }
+
+    //anything else, checked last on the cards that passed all other conditions
+    public CardQuery where(Predicate<Card> predicate) {
+        predicates.add(predicate);
+        return this;
+    }
+
+    //the most selective indexed condition, null for a full scan
+    private Indexed plan() {
+        Indexed best = null;
+        for (var o : indexed) {
+            if (best == null || o.rows.length < best.rows.length) {
+                best = o;
+            }
+        }
+        return best;
+    }
+
+    public String explain() {
+        var best = plan();
+        return best != null ? "index %s (%d rows), %d checks".formatted(best.label, best.rows.length, indexed.size() - 1 + filters.size() + predicates.size())
+                : "scan (%d rows), %d checks".formatted(table.size(), filters.size() + predicates.size());
+    }
+
+    private boolean test(int row, Indexed best) {
+        for (var o : indexed) {
+            if (o != best && o.filter.test(row) == false) {
+                return false;
+            }
+        }
+        for (var f : filters) {
+            if (f.test(row) == false) {
+                return false;
+            }
+        }
+        if (predicates.isEmpty() == false) {
+            var c = table.getCard(row);
+            for (var p : predicates) {
+                if (p.test(c) == false) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public BitSet rows() {
+        var o = new BitSet(table.size());
+        var best = plan();
+        if (best != null) {
+            for (var row : best.rows) {
+                if (test(row, best)) {
+                    o.set(row);
+                }
+            }
+        } else {
+            for (var row = 0; row < table.size(); row++) {
+                if (test(row, null)) {
+                    o.set(row);
+                }
+            }
+        }
+        return o;
+    }
+
+    public List<Card> list() {
+        var rows = rows();
+        var o = new ArrayList<Card>(rows.cardinality());
+        for (var i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+            o.add(table.getCard(i));
+        }
+        return o;
+    }
+
+    public int count() {
+        return rows().cardinality();
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Canonical instances of low-cardinality card strings (codes, traits, slots,
+ * illustrators), so that thousands of cards share one String per distinct
+ * value instead of one per parsed token. Safe for the parallel decode.
+ *
+ * @author morvael
+ */
+public final class CardStringPool {
+
+    private final ConcurrentHashMap<String, String> pool = new ConcurrentHashMap<>();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    public String canonical(String s) {
+        if (s == null) {
+            return null;
+        }
+        var existing = pool.putIfAbsent(s, s);
+        if (existing == null) {
+            return s;
+        }
+        deduplicated.increment();
+        savedBytes.add(estimateSize(s));
+        return existing;
+    }
+
+    //String header + backing byte[] (compact strings), 8-byte aligned
+    private static long estimateSize(String s) {
+        var latin1 = true;
+        for (var i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                latin1 = false;
+                break;
+            }
+        }
+        var array = 16L + (latin1 ? s.length() : 2L * s.length());
+        return 24L + ((array + 7L) & ~7L);
+    }
+
+    public int size() {
+        return pool.size();
+    }
+
+    public long getDeduplicated() {
+        return deduplicated.sum();
+    }
+
+    public long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+}
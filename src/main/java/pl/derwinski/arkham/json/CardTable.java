@@ -0,0 +1,373 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import pl.derwinski.arkham.json.configuration.Configuration;
+import pl.derwinski.arkham.json.metadata.MetadataRegistry;
+
+/**
+ * Column-oriented view of the loaded cards, built once after configuration
+ * processing. Predicate passes scan the columns they need and go back to the
+ * card list only for matching rows. The eligibility sets the exporters share
+ * are computed in the same pass.
+ *
+ * @author morvael
+ */
+public final class CardTable {
+
+    static final int NULL_XP = -1;
+
+    private static final int BY_PACK = 0;
+    private static final int BY_ENCOUNTER = 1;
+    private static final int BY_TYPE = 2;
+    private static final int BY_SUBTYPE = 3;
+    private static final int BY_CODE = 4;
+    private static final int BY_NAME = 5;
+    private static final int INDEXES = 6;
+
+    public static CardTable build(Configuration configuration, MetadataRegistry registry, List<Card> cards) {
+        var o = new CardTable(registry, cards);
+        for (var i = 0; i < o.size; i++) {
+            var c = cards.get(i);
+            o.cards[i] = c;
+            o.ids[i] = c.getId();
+            o.codes[i] = c.getCode();
+            o.names[i] = c.getName();
+            o.traits[i] = c.getTraits();
+            o.realTraits[i] = c.getRealTraits();
+            o.traitSets[i] = c.getTraitSet();
+            o.realTraitSets[i] = c.getRealTraitSet();
+            o.tabooSetId[i] = c.getTabooSetId() != null ? c.getTabooSetId() : 0;
+            o.pack[i] = c.getPackOrdinal();
+            o.type[i] = c.getTypeOrdinal();
+            o.subtype[i] = c.getSubtypeOrdinal();
+            o.encounter[i] = c.getEncounterOrdinal();
+            o.faction[i] = c.getFactionOrdinal();
+            o.faction2[i] = c.getFaction2Ordinal();
+            o.faction3[i] = c.getFaction3Ordinal();
+            o.xp[i] = c.getXp() != null ? c.getXp() : NULL_XP;
+            o.tabooUntil[i] = o.timeline.getNextTabooSetId(o.codes[i], o.tabooSetId[i]);
+            if (configuration.filter(c)) {
+                o.filtered.set(i);
+            }
+            if (c.isParallel()) {
+                o.parallel.set(i);
+            }
+        }
+        o.classify(configuration);
+        return o;
+    }
+
+    private final MetadataRegistry registry;
+    private final int size;
+    private final Card[] cards;
+    private final String[] ids;
+    private final String[] codes;
+    private final String[] names;
+    private final String[] traits;
+    private final String[] realTraits;
+    private final BitSet[] traitSets;
+    private final BitSet[] realTraitSets;
+    private final int[] tabooSetId;
+    private final int[] pack;
+    private final int[] type;
+    private final int[] subtype;
+    private final int[] encounter;
+    private final int[] faction;
+    private final int[] faction2;
+    private final int[] faction3;
+    private final int[] xp;
+    private final int[] tabooUntil;
+    private final BitSet filtered;
+    private final BitSet parallel;
+    private final BitSet basicWeaknesses;
+    private final BitSet transfigurations;
+    private final BitSet ravenQuill;
+    private final BitSet bonded;
+    private final BitSet mini;
+    private final TabooTimeline timeline;
+    private final AtomicReferenceArray<CardGroupIndex> indexes = new AtomicReferenceArray<>(INDEXES);
+
+    private CardTable(MetadataRegistry registry, List<Card> cards) {
+        var size = cards.size();
+        this.registry = registry;
+        this.size = size;
+        this.cards = new Card[size];
+        this.ids = new String[size];
+        this.codes = new String[size];
+        this.names = new String[size];
+        this.traits = new String[size];
+        this.realTraits = new String[size];
+        this.traitSets = new BitSet[size];
+        this.realTraitSets = new BitSet[size];
+        this.tabooSetId = new int[size];
+        this.pack = new int[size];
+        this.type = new int[size];
+        this.subtype = new int[size];
+        this.encounter = new int[size];
+        this.faction = new int[size];
+        this.faction2 = new int[size];
+        this.faction3 = new int[size];
+        this.xp = new int[size];
+        this.tabooUntil = new int[size];
+        this.filtered = new BitSet(size);
+        this.parallel = new BitSet(size);
+        this.basicWeaknesses = new BitSet(size);
+        this.transfigurations = new BitSet(size);
+        this.ravenQuill = new BitSet(size);
+        this.bonded = new BitSet(size);
+        this.mini = new BitSet(size);
+        this.timeline = TabooTimeline.build(cards);
+    }
+
+    private void classify(Configuration configuration) {
+        var investigators = getByType().getRows("investigator");
+        var assets = getByType().getRows("asset");
+        var weaknesses = getBySubtype().getRows("basicweakness");
+        var tomeOrSpell = registry.getTraitMask("Tome", "Spell");
+        for (var i = 0; i < size; i++) {
+            var c = cards[i];
+            if (filtered.get(i)) {
+                if (weaknesses.get(i)) {
+                    basicWeaknesses.set(i);
+                }
+                if (configuration.hasBonded(c)) {
+                    bonded.set(i);
+                }
+            }
+            if ((c.getMiniCode() != null || investigators.get(i)) && c.getMiniImageId().equals(ids[i]) == false) {
+                mini.set(i);
+            }
+            if (tabooSetId[i] == 0) {
+                if (investigators.get(i) && encounter[i] == 0 && parallel.get(i) == false && c.getDeckbuilderQuantity() > 0) {
+                    transfigurations.set(i);
+                }
+                if (assets.get(i) && realTraitSets[i] != null && realTraitSets[i].intersects(tomeOrSpell)) {
+                    ravenQuill.set(i);
+                }
+            }
+        }
+    }
+
+    public MetadataRegistry getRegistry() {
+        return registry;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Card getCard(int row) {
+        return cards[row];
+    }
+
+    public String getId(int row) {
+        return ids[row];
+    }
+
+    public String getCode(int row) {
+        return codes[row];
+    }
+
+    public String getName(int row) {
+        return names[row];
+    }
+
+    public String getTraits(int row) {
+        return traits[row];
+    }
+
+    public String getRealTraits(int row) {
+        return realTraits[row];
+    }
+
+    //shared trait ordinal sets, do not modify
+    public BitSet getTraitSet(int row) {
+        return traitSets[row];
+    }
+
+    public BitSet getRealTraitSet(int row) {
+        return realTraitSets[row];
+    }
+
+    /**
+     * Taboo set id with null stored as 0.
+     */
+    public int getTabooSetId(int row) {
+        return tabooSetId[row];
+    }
+
+    public int getPackOrdinal(int row) {
+        return pack[row];
+    }
+
+    public int getTypeOrdinal(int row) {
+        return type[row];
+    }
+
+    public int getSubtypeOrdinal(int row) {
+        return subtype[row];
+    }
+
+    public int getEncounterOrdinal(int row) {
+        return encounter[row];
+    }
+
+    public int getFactionOrdinal(int row) {
+        return faction[row];
+    }
+
+    public int getFaction2Ordinal(int row) {
+        return faction2[row];
+    }
+
+    public int getFaction3Ordinal(int row) {
+        return faction3[row];
+    }
+
+    /**
+     * Experience with null stored as -1.
+     */
+    public int getXp(int row) {
+        return xp[row];
+    }
+
+    /**
+     * True when the row is the version of its code in effect at the given
+     * taboo set (it is the newest version not newer than the taboo set).
+     */
+    public boolean isInEffect(int row, int tabooSetId) {
+        return this.tabooSetId[row] <= tabooSetId && tabooSetId < tabooUntil[row];
+    }
+
+    public boolean isFiltered(int row) {
+        return filtered.get(row);
+    }
+
+    public boolean isParallel(int row) {
+        return parallel.get(row);
+    }
+
+    /**
+     * Rows passing Configuration.filter. Shared, do not modify.
+     */
+    public BitSet getFiltered() {
+        return filtered;
+    }
+
+    //filtered basic weaknesses
+    public BitSet getBasicWeaknesses() {
+        return basicWeaknesses;
+    }
+
+    //base investigators without taboo, encounter or parallel variants, that can be picked for a deck
+    public BitSet getTransfigurations() {
+        return transfigurations;
+    }
+
+    //non-taboo assets with the Tome or Spell trait
+    public BitSet getRavenQuill() {
+        return ravenQuill;
+    }
+
+    //filtered cards with bonded cards to spawn
+    public BitSet getBonded() {
+        return bonded;
+    }
+
+    //cards (with a mini code or investigators) whose mini image is another card's
+    public BitSet getMini() {
+        return mini;
+    }
+
+    public TabooTimeline getTimeline() {
+        return timeline;
+    }
+
+    //secondary indexes are built on first use, a racing build yields an equal index and the first one published wins
+    private CardGroupIndex index(int slot) {
+        var o = indexes.get(slot);
+        if (o == null) {
+            o = switch (slot) {
+                case BY_PACK ->
+                    CardGroupIndex.byOrdinal(this, pack, registry.getPacks());
+                case BY_ENCOUNTER ->
+                    CardGroupIndex.byOrdinal(this, encounter, registry.getEncounters());
+                case BY_TYPE ->
+                    CardGroupIndex.byOrdinal(this, type, registry.getTypes());
+                case BY_SUBTYPE ->
+                    CardGroupIndex.byOrdinal(this, subtype, registry.getSubtypes());
+                case BY_CODE ->
+                    CardGroupIndex.byString(this, codes);
+                case BY_NAME ->
+                    CardGroupIndex.byString(this, names);
+                default ->
+                    throw new IllegalArgumentException("Unknown index " + slot);
+            };
+            var published = indexes.compareAndExchange(slot, null, o);
+            if (published != null) {
+                o = published;
+            }
+        }
+        return o;
+    }
+
+    public CardGroupIndex getByPack() {
+        return index(BY_PACK);
+    }
+
+    public CardGroupIndex getByEncounter() {
+        return index(BY_ENCOUNTER);
+    }
+
+    public CardGroupIndex getByType() {
+        return index(BY_TYPE);
+    }
+
+    public CardGroupIndex getBySubtype() {
+        return index(BY_SUBTYPE);
+    }
+
+    public CardGroupIndex getByCode() {
+        return index(BY_CODE);
+    }
+
+    public CardGroupIndex getByName() {
+        return index(BY_NAME);
+    }
+
+    //SIZED, SUBSIZED, ORDERED, IMMUTABLE and NONNULL over the rows, splits in halves
+    Spliterator<Card> spliterator() {
+        return Spliterators.spliterator(cards, 0, size, Spliterator.ORDERED | Spliterator.IMMUTABLE | Spliterator.NONNULL);
+    }
+
+}
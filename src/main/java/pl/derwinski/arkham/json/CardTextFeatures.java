@@ -0,0 +1,201 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Text markers the exporters look for, found in one pass over the text with a
+ * small Aho-Corasick automaton instead of one contains() or regex scan each.
+ * Uses is the token of the first "Uses (N " and bondedTo the name inside the
+ * first complete "Bonded (...)".
+ *
+ * @author morvael
+ */
+public final class CardTextFeatures implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int STARTING = 1 << 0;
+    private static final int ACTION = 1 << 1;
+    private static final int REACTION = 1 << 2;
+    private static final int FREE = 1 << 3;
+    private static final int USES = 1 << 4;
+    private static final int BONDED = 1 << 5;
+
+    private static final String[] PATTERNS = {"Starting.", "[action]", "[reaction]", "[free]", "[fast]", "Uses (", "Bonded ("};
+    private static final int[] MARKERS = {STARTING, ACTION, REACTION, FREE, FREE, USES, BONDED};
+
+    public static final CardTextFeatures NONE = new CardTextFeatures(0, null, null);
+
+    //alphabet index of each ascii char used by the patterns, -1 for any other char
+    private static final int[] ALPHABET = new int[128];
+    //DFA with failure links resolved, outputs as marker masks per state
+    private static final int[][] NEXT;
+    private static final int[] OUTPUT;
+
+    static {
+        Arrays.fill(ALPHABET, -1);
+        var size = 0;
+        for (var p : PATTERNS) {
+            for (var i = 0; i < p.length(); i++) {
+                if (ALPHABET[p.charAt(i)] < 0) {
+                    ALPHABET[p.charAt(i)] = size++;
+                }
+            }
+        }
+        var next = new ArrayList<int[]>();
+        var output = new ArrayList<Integer>();
+        next.add(new int[size]);
+        output.add(0);
+        for (var k = 0; k < PATTERNS.length; k++) {
+            var state = 0;
+            for (var i = 0; i < PATTERNS[k].length(); i++) {
+                var a = ALPHABET[PATTERNS[k].charAt(i)];
+                if (next.get(state)[a] == 0) {
+                    next.get(state)[a] = next.size();
+                    next.add(new int[size]);
+                    output.add(0);
+                }
+                state = next.get(state)[a];
+            }
+            output.set(state, output.get(state) | MARKERS[k]);
+        }
+        // breadth-first: missing transitions follow the failure link, outputs inherit the failure state's
+        var fail = new int[next.size()];
+        var queue = new int[next.size()];
+        var head = 0;
+        var tail = 0;
+        for (var a = 0; a < size; a++) {
+            if (next.get(0)[a] != 0) {
+                queue[tail++] = next.get(0)[a];
+            }
+        }
+        while (head < tail) {
+            var state = queue[head++];
+            output.set(state, output.get(state) | output.get(fail[state]));
+            for (var a = 0; a < size; a++) {
+                var child = next.get(state)[a];
+                if (child != 0) {
+                    fail[child] = next.get(fail[state])[a];
+                    queue[tail++] = child;
+                } else {
+                    next.get(state)[a] = next.get(fail[state])[a];
+                }
+            }
+        }
+        NEXT = next.toArray(int[][]::new);
+        OUTPUT = output.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public static CardTextFeatures scan(String text) {
+        if (text == null) {
+            return NONE;
+        }
+        var flags = 0;
+        String uses = null;
+        String bondedTo = null;
+        var state = 0;
+        for (var i = 0; i < text.length(); i++) {
+            var ch = text.charAt(i);
+            var a = ch < 128 ? ALPHABET[ch] : -1;
+            state = a < 0 ? 0 : NEXT[state][a];
+            var out = OUTPUT[state];
+            if (out != 0) {
+                flags |= out & ~(USES | BONDED);
+                if ((out & USES) != 0 && uses == null) {
+                    uses = readUses(text, i + 1);
+                }
+                if ((out & BONDED) != 0 && bondedTo == null) {
+                    bondedTo = readBonded(text, i + 1);
+                }
+            }
+        }
+        if (flags == 0 && uses == null && bondedTo == null) {
+            return NONE;
+        }
+        return new CardTextFeatures(flags, uses, bondedTo);
+    }
+
+    //([0-9X]+) followed by a space
+    private static String readUses(String text, int start) {
+        var i = start;
+        while (i < text.length() && ((text.charAt(i) >= '0' && text.charAt(i) <= '9') || text.charAt(i) == 'X')) {
+            i++;
+        }
+        return i > start && i < text.length() && text.charAt(i) == ' ' ? text.substring(start, i) : null;
+    }
+
+    //([^)]+) followed by a closing parenthesis
+    private static String readBonded(String text, int start) {
+        var end = text.indexOf(')', start);
+        return end > start ? text.substring(start, end) : null;
+    }
+
+    private final int flags;
+    private final String uses;
+    private final String bondedTo;
+
+    private CardTextFeatures(int flags, String uses, String bondedTo) {
+        this.flags = flags;
+        this.uses = uses;
+        this.bondedTo = bondedTo;
+    }
+
+    private Object readResolve() {
+        return flags == 0 && uses == null && bondedTo == null ? NONE : this;
+    }
+
+    public boolean isStarting() {
+        return (flags & STARTING) != 0;
+    }
+
+    public boolean hasAction() {
+        return (flags & ACTION) != 0;
+    }
+
+    public boolean hasReaction() {
+        return (flags & REACTION) != 0;
+    }
+
+    //[free] or [fast]
+    public boolean hasFree() {
+        return (flags & FREE) != 0;
+    }
+
+    //token of the first "Uses (N ", "X" or digits
+    public String getUses() {
+        return uses;
+    }
+
+    public String getBondedTo() {
+        return bondedTo;
+    }
+
+}
@@ -26,15 +26,23 @@
  */
 package pl.derwinski.arkham.json;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.json.JsonMapper;
 import java.io.File;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import pl.derwinski.arkham.Language;
+import pl.derwinski.arkham.LoadTimer;
 import pl.derwinski.arkham.Util;
 import static pl.derwinski.arkham.Util.log;
 import pl.derwinski.arkham.json.configuration.Configuration;
@@ -46,10 +54,49 @@ import pl.derwinski.arkham.json.metadata.Metadata;
  */
 public final class Cards implements Iterable<Card> {
 
-    private static final HashSet<String> unhandled = new HashSet<>();
+    private static final Set<String> unhandled = ConcurrentHashMap.newKeySet();
 
     public static Cards loadCards(Language lng) throws Exception {
-        return loadCards(lng, Configuration.loadConfiguration(), Metadata.loadMetadata(lng));
+        return loadCards(lng, new LoadTimer());
+    }
+
+    public static Cards loadCards(Language lng, LoadTimer timer) throws Exception {
+        var symbol = lng.name().toLowerCase();
+        var metadataPath = "run/metadata_%s.json".formatted(symbol);
+        var cardsPath = "run/cards_%s.json".formatted(symbol);
+        // configuration and both downloads are independent, cards decoding needs configuration and metadata
+        var configuration = timer.supply(() -> Configuration.loadConfiguration());
+        var metadataDownload = timer.supply(() -> {
+            Util.downloadIfOld("https://api-v2.arkham.build/v1/cache/metadata/%s".formatted(symbol), metadataPath);
+            return metadataPath;
+        });
+        var cardsDownload = timer.supply(() -> {
+            Util.downloadIfOld("https://api-v2.arkham.build/v1/cache/cards/%s".formatted(symbol), cardsPath);
+            return cardsPath;
+        });
+        LoadTimer.join(CompletableFuture.allOf(metadataDownload, cardsDownload));
+        var snapshotFile = new File("run/cards_%s.snapshot".formatted(symbol));
+        var key = timer.time(() -> CardsSnapshot.computeKey("run/configuration.json", metadataPath, cardsPath));
+        var snapshot = timer.time(() -> CardsSnapshot.read(snapshotFile, key));
+        if (snapshot != null) {
+            log("Loaded snapshot %s", snapshotFile);
+            return snapshot.restore(LoadTimer.join(configuration));
+        }
+        var metadata = timer.supply(() -> Metadata.loadMetadata(metadataPath));
+        var projection = timer.supply(() -> CardsProjection.project(cardsPath));
+        var cacheFile = new File("run/cards_%s.cache".formatted(symbol));
+        var cacheKey = timer.time(() -> CardsSnapshot.computeKey("run/configuration.json", metadataPath));
+        var cache = timer.time(() -> CardCache.read(cacheFile, cacheKey));
+        var c = LoadTimer.join(configuration);
+        var m = LoadTimer.join(metadata);
+        var p = LoadTimer.join(projection);
+        var o = timer.time(() -> loadCards(c, m, p, cache));
+        if (o != null) {
+            log("Card cache %s: %d reused, %d changed, %d touched, %d added, %d removed", symbol, cache.getReused(), cache.getChanged(), cache.getTouched(), cache.getAdded(), cache.getRemoved());
+            cache.write(cacheFile, cacheKey);
+            CardsSnapshot.capture(o).write(snapshotFile, key);
+        }
+        return o;
     }
 
     public static Cards loadCards(Language lng, Configuration configuration, Metadata metadata) throws Exception {
@@ -58,73 +105,112 @@ public final class Cards implements Iterable<Card> {
         return loadCards(configuration, metadata, "run/cards_%s.json".formatted(symbol));
     }
 
+    private static ForkJoinPool getDecodePool() {
+        return ForkJoinPool.getCommonPoolParallelism() > 1 ? ForkJoinPool.commonPool() : null;
+    }
+
     public static Cards loadCards(Configuration configuration, Metadata metadata, String path) throws Exception {
-        var file = new File(path);
-        var c = new JsonMapper().readTree(file).findValue("data");
-        if (c != null) {
-            return loadCards(configuration, metadata, c);
-        } else {
-            log("Error reading Cards file");
-            return null;
+        return loadCards(configuration, metadata, path, null);
+    }
+
+    public static Cards loadCards(Configuration configuration, Metadata metadata, String path, CardCache cache) throws Exception {
+        try (var p = Util.createParser(new File(path))) {
+            if (Util.findField(p, "data")) {
+                return loadCards(configuration, metadata, p, cache);
+            } else {
+                log("Error reading Cards file");
+                return null;
+            }
         }
     }
 
     public static Cards loadCards(Configuration configuration, Metadata metadata, JsonNode c) throws Exception {
-        if (c.isObject()) {
-            var o = new Cards(configuration, metadata);
-            var it = c.fieldNames();
-            while (it.hasNext()) {
-                var fieldName = it.next();
+        try (var p = Util.createParser(c)) {
+            return loadCards(configuration, metadata, p);
+        }
+    }
+
+    public static Cards loadCards(Configuration configuration, Metadata metadata, JsonParser c) throws Exception {
+        return loadCards(configuration, metadata, c, null);
+    }
+
+    public static Cards loadCards(Configuration configuration, Metadata metadata, JsonParser c, CardCache cache) throws Exception {
+        if (c.currentToken() == JsonToken.START_OBJECT) {
+            var o = new Cards(configuration, new CardContext(metadata, cache));
+            while (c.nextToken() == JsonToken.FIELD_NAME) {
+                var fieldName = c.currentName();
+                c.nextToken();
                 switch (fieldName) {
                     case "all_card":
-                        o.cards = Collections.unmodifiableList(Card.readCards(configuration, metadata, c.get(fieldName)));
+                        o.cards = Collections.unmodifiableList(Card.readCards(configuration, o.context, c, getDecodePool()));
                         break;
                     default:
                         if (unhandled.add(fieldName)) {
-                            log("Unhandled field name in Cards: %s (%s : %s)", fieldName, c.get(fieldName), c.get(fieldName).getNodeType());
+                            var node = Util.readTree(c);
+                            log("Unhandled field name in Cards: %s (%s : %s)", fieldName, node, node.getNodeType());
+                        } else {
+                            c.skipChildren();
                         }
                         break;
                 }
             }
             for (var card : o.cards) {
-                o.map.put(card.getId(), card);
+                o.index.put(card.getId(), card);
             }
             for (var card : o.cards) {
                 if (card.getBackLinkId() != null) {
-                    var backCard = o.map.get(card.getBackLinkId());
+                    var backCard = o.index.get(card.getBackLinkId());
                     if (backCard != null) {
                         if (configuration.isFlipped(backCard)) {
                             backCard.flip(card);
-                            o.map.put(card.getId(), card);
-                            o.map.put(backCard.getId(), backCard);
+                            o.index.put(card.getId(), card);
+                            o.index.put(backCard.getId(), backCard);
                         } else if (configuration.isFlipped(card)) {
                             card.flip(backCard);
-                            o.map.put(card.getId(), card);
-                            o.map.put(backCard.getId(), backCard);
+                            o.index.put(card.getId(), card);
+                            o.index.put(backCard.getId(), backCard);
                         } else {
                             backCard.hide();
                         }
                     }
                 }
             }
+            o.freeze();
             return o;
         } else {
-            if (c.isNull() == false) {
-                log("Error reading Cards object: %s", c.asText());
+            if (c.currentToken() != JsonToken.VALUE_NULL) {
+                log("Error reading Cards object: %s", Util.readText(c));
             }
             return null;
         }
     }
 
+    static Cards restore(Configuration configuration, Metadata metadata, List<Card> cards, HashMap<String, Card> map) {
+        var o = new Cards(configuration, new CardContext(metadata));
+        o.cards = Collections.unmodifiableList(cards);
+        o.index.putAll(map);
+        o.freeze();
+        return o;
+    }
+
     private final Configuration configuration;
-    private final Metadata metadata;
-    private final HashMap<String, Card> map = new HashMap<>();
+    private final CardContext context;
+    private final CardIndex index = new CardIndex();
 
     private List<Card> cards;
+    private volatile CardTable table;
 
-    private Cards(Configuration configuration, Metadata metadata) {
+    private Cards(Configuration configuration, CardContext context) {
         this.configuration = configuration;
-        this.metadata = metadata;
+        this.context = context;
+    }
+
+    //cards are read-only from here on, the volatile table write publishes them to exporter threads
+    private void freeze() {
+        for (var card : cards) {
+            card.freeze();
+        }
+        table = CardTable.build(configuration, context.getRegistry(), cards);
     }
 
     public List<Card> getCards() {
@@ -136,16 +222,71 @@ public final class Cards implements Iterable<Card> {
         return cards.iterator();
     }
 
+    @Override
+    public Spliterator<Card> spliterator() {
+        return getTable().spliterator();
+    }
+
+    public Stream<Card> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
     public Configuration getConfiguration() {
         return configuration;
     }
 
     public Metadata getMetadata() {
-        return metadata;
+        return context.getMetadata();
+    }
+
+    public CardStringPool getStringPool() {
+        return context.getStrings();
+    }
+
+    HashMap<String, Card> getMap() {
+        return index.toMap();
     }
 
     public Card getCard(String id) {
-        return map.get(id);
+        return index.get(id);
+    }
+
+    public CardTable getTable() {
+        var t = table;
+        if (t == null) {
+            synchronized (this) {
+                t = table;
+                if (t == null) {
+                    t = CardTable.build(configuration, context.getRegistry(), cards);
+                    table = t;
+                }
+            }
+        }
+        return t;
+    }
+
+    public CardQuery query() {
+        return new CardQuery(getTable(), getMetadata());
+    }
+
+    public CardGroupIndex getByPack() {
+        return getTable().getByPack();
+    }
+
+    public CardGroupIndex getByEncounter() {
+        return getTable().getByEncounter();
+    }
+
+    public CardGroupIndex getByType() {
+        return getTable().getByType();
+    }
+
+    public CardGroupIndex getByCode() {
+        return getTable().getByCode();
+    }
+
+    public CardGroupIndex getByName() {
+        return getTable().getByName();
     }
 
 }
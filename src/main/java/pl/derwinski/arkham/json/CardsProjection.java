@@ -0,0 +1,144 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import pl.derwinski.arkham.Util;
+import static pl.derwinski.arkham.Util.log;
+
+/**
+ * Compact copy of a downloaded cards file without the card fields that
+ * Card.readCard ignores (deck options, customizations, restrictions...). It is
+ * written once next to the source and reused while the source is unchanged and
+ * the ignored field list is the same.
+ *
+ * @author morvael
+ */
+public final class CardsProjection {
+
+    private static final String SIGNATURE_FIELD = "_projection";
+
+    private CardsProjection() {
+
+    }
+
+    public static String project(String path) {
+        var source = new File(path);
+        if (source.exists() == false) {
+            return path;
+        }
+        var target = new File(path.replaceFirst("\\.json$", "") + ".trimmed.json");
+        var signature = getSignature();
+        try {
+            if (target.exists() && target.lastModified() == source.lastModified() && signature.equals(readSignature(target))) {
+                return target.getPath();
+            }
+            var tmp = new File(target.getPath() + ".tmp");
+            try (var p = Util.createParser(source); var g = Util.createGenerator(tmp)) {
+                if (p.nextToken() != JsonToken.START_OBJECT) {
+                    throw new IllegalStateException("Cards file is not an object");
+                }
+                g.writeStartObject();
+                g.writeStringField(SIGNATURE_FIELD, signature);
+                copyFields(p, g, "");
+                g.writeEndObject();
+            }
+            tmp.setLastModified(source.lastModified());
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            target.setLastModified(source.lastModified());
+            log("Trimmed %s: %d KB -> %d KB", path, source.length() / 1024, target.length() / 1024);
+            return target.getPath();
+        } catch (Exception ex) {
+            log("Error trimming %s: %s", path, ex);
+            return path;
+        }
+    }
+
+    private static String getSignature() {
+        return String.join(",", Card.getIgnoredFields());
+    }
+
+    private static String readSignature(File target) throws Exception {
+        try (var p = Util.createParser(target)) {
+            if (p.nextToken() == JsonToken.START_OBJECT
+                    && p.nextToken() == JsonToken.FIELD_NAME
+                    && SIGNATURE_FIELD.equals(p.currentName())
+                    && p.nextToken() == JsonToken.VALUE_STRING) {
+                return p.getText();
+            }
+            return null;
+        }
+    }
+
+    //parser on START_OBJECT, only root and data are descended into, the rest is copied verbatim
+    private static void copyFields(JsonParser p, JsonGenerator g, String path) throws Exception {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            var fieldName = p.currentName();
+            var fieldPath = path + "/" + fieldName;
+            p.nextToken();
+            g.writeFieldName(fieldName);
+            if (p.currentToken() == JsonToken.START_OBJECT && fieldPath.equals("/data")) {
+                g.writeStartObject();
+                copyFields(p, g, fieldPath);
+                g.writeEndObject();
+            } else if (p.currentToken() == JsonToken.START_ARRAY && fieldPath.equals("/data/all_card")) {
+                g.writeStartArray();
+                while (p.nextToken() != JsonToken.END_ARRAY) {
+                    if (p.currentToken() == JsonToken.START_OBJECT) {
+                        copyCard(p, g);
+                    } else {
+                        g.copyCurrentStructure(p);
+                    }
+                }
+                g.writeEndArray();
+            } else {
+                g.copyCurrentStructure(p);
+            }
+        }
+    }
+
+    private static void copyCard(JsonParser p, JsonGenerator g) throws Exception {
+        g.writeStartObject();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            var fieldName = p.currentName();
+            p.nextToken();
+            if (Card.isIgnoredField(fieldName)) {
+                p.skipChildren();
+            } else {
+                g.writeFieldName(fieldName);
+                g.copyCurrentStructure(p);
+            }
+        }
+        g.writeEndObject();
+    }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.TreeMap;
+import java.util.jar.JarFile;
+import org.apache.commons.io.FileUtils;
+import pl.derwinski.arkham.Util;
+import static pl.derwinski.arkham.Util.log;
+import pl.derwinski.arkham.json.configuration.Configuration;
+import pl.derwinski.arkham.json.metadata.Metadata;
+import pl.derwinski.arkham.json.metadata.MetadataCycle;
+import pl.derwinski.arkham.json.metadata.MetadataEncounterSet;
+import pl.derwinski.arkham.json.metadata.MetadataPack;
+import pl.derwinski.arkham.json.metadata.MetadataRegistry;
+import pl.derwinski.arkham.json.metadata.MetadataTabooSet;
+
+/**
+ * Binary snapshot of fully processed Cards (after extras, taboo clones,
+ * parallel combinations, bonded registration and flips), together with the
+ * Metadata and the Configuration maps filled in by processing. A snapshot is
+ * only used when its key matches the hash of the input files and of the
+ * classes that shape the model, anything else falls back to a full rebuild.
+ *
+ * @author morvael
+ */
+public final class CardsSnapshot implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MAGIC = 0x41484353;
+
+    //class files that shape the model, all of them are part of every key
+    private static final String[] MODEL = {"pl/derwinski/arkham/json/", "pl/derwinski/arkham/Util.class"};
+
+    //every serialized class of this project must be listed, reading rejects any other
+    private static final Class<?>[] SERIALIZED = {
+        Card.class, CardTextFeatures.class, CardsSnapshot.class, CardCache.Entry.class,
+        Metadata.class, MetadataCycle.class, MetadataEncounterSet.class, MetadataPack.class, MetadataTabooSet.class,
+        MetadataRegistry.class, MetadataRegistry.Dimension.class
+    };
+
+    static final ObjectInputFilter FILTER = createFilter();
+
+    private static byte[] modelHash;
+
+    private static ObjectInputFilter createFilter() {
+        var pattern = new StringBuilder("java.util.*;java.lang.*");
+        for (var c : SERIALIZED) {
+            pattern.append(';').append(c.getName());
+        }
+        return ObjectInputFilter.Config.createFilter(pattern.append(";!*").toString());
+    }
+
+    private static boolean isModel(String name) {
+        if (name.endsWith(".class")) {
+            for (var prefix : MODEL) {
+                if (name.startsWith(prefix)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    //hash of the model class files from the directory or jar this class was loaded from, computed once per run
+    private static synchronized byte[] getModelHash() throws Exception {
+        if (modelHash == null) {
+            var root = Path.of(CardsSnapshot.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            var files = new TreeMap<String, byte[]>();
+            if (Files.isDirectory(root)) {
+                try (var walk = Files.walk(root)) {
+                    for (var path : (Iterable<Path>) walk::iterator) {
+                        var name = root.relativize(path).toString().replace(File.separatorChar, '/');
+                        if (isModel(name) && Files.isRegularFile(path)) {
+                            files.put(name, Files.readAllBytes(path));
+                        }
+                    }
+                }
+            } else {
+                try (var jar = new JarFile(root.toFile())) {
+                    for (var entry : Collections.list(jar.entries())) {
+                        if (isModel(entry.getName())) {
+                            try (var is = jar.getInputStream(entry)) {
+                                files.put(entry.getName(), is.readAllBytes());
+                            }
+                        }
+                    }
+                }
+            }
+            if (files.containsKey("pl/derwinski/arkham/json/CardsSnapshot.class") == false) {
+                throw new IllegalStateException("Model class files not found in %s".formatted(root));
+            }
+            var md = MessageDigest.getInstance("SHA-256");
+            for (var e : files.entrySet()) {
+                md.update(e.getKey().getBytes(StandardCharsets.UTF_8));
+                md.update(e.getValue());
+            }
+            modelHash = md.digest();
+        }
+        return modelHash;
+    }
+
+    public static String computeKey(String... paths) throws Exception {
+        var md = MessageDigest.getInstance("SHA-256");
+        for (var path : paths) {
+            md.update(path.getBytes());
+            md.update(FileUtils.readFileToByteArray(new File(path)));
+        }
+        md.update(getModelHash());
+        return HexFormat.of().formatHex(md.digest());
+    }
+
+    public static CardsSnapshot capture(Cards cards) {
+        var config = cards.getConfiguration();
+        return new CardsSnapshot(cards.getMetadata(), new ArrayList<>(cards.getCards()), cards.getMap(),
+                config.getImageMapping(), config.getBondedCards());
+    }
+
+    public static CardsSnapshot read(File file, String key) {
+        if (file.exists() == false) {
+            return null;
+        }
+        try (var ois = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file.toPath()), 1 << 16))) {
+            ois.setObjectInputFilter(FILTER);
+            if (ois.readInt() != MAGIC) {
+                log("Ignoring snapshot %s: unknown format", file);
+                return null;
+            }
+            if (key.equals(ois.readUTF()) == false) {
+                log("Ignoring snapshot %s: inputs changed", file);
+                return null;
+            }
+            return (CardsSnapshot) ois.readObject();
+        } catch (Exception ex) {
+            log("Ignoring snapshot %s: %s", file, ex);
+            return null;
+        }
+    }
+
+    private final Metadata metadata;
+    private final ArrayList<Card> cards;
+    private final HashMap<String, Card> map;
+    private final LinkedHashMap<String, String> imageMapping;
+    private final HashMap<String, ArrayList<Card>> bondedCards;
+
+    private CardsSnapshot(Metadata metadata, ArrayList<Card> cards, HashMap<String, Card> map,
+            LinkedHashMap<String, String> imageMapping, HashMap<String, ArrayList<Card>> bondedCards) {
+        this.metadata = metadata;
+        this.cards = cards;
+        this.map = map;
+        this.imageMapping = imageMapping;
+        this.bondedCards = bondedCards;
+    }
+
+    public void write(File file, String key) {
+        var tmp = new File(file.getPath() + ".tmp");
+        try {
+            try (var oos = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath()), 1 << 16))) {
+                oos.writeInt(MAGIC);
+                oos.writeUTF(key);
+                oos.writeObject(this);
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception ex) {
+            log("Error writing snapshot %s: %s", file, ex);
+            tmp.delete();
+        }
+    }
+
+    public Cards restore(Configuration configuration) {
+        configuration.restore(imageMapping, bondedCards);
+        return Cards.restore(configuration, metadata, cards, map);
+    }
+
+}
@@ -0,0 +1,194 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import pl.derwinski.arkham.Util;
+import static pl.derwinski.arkham.Util.log;
+import static pl.derwinski.arkham.Util.readString;
+
+/**
+ * Table of typed field setters compiled once per JSON object type. Field names
+ * coming from the parser are canonicalized (interned) by Jackson, so lookups
+ * hit the cached String hash and the identity check of HashMap.
+ *
+ * @author morvael
+ * @param <T> type of the object being read
+ * @param <C> type of the context passed to setters
+ */
+public final class FieldBinder<T, C> {
+
+    @FunctionalInterface
+    public interface Binding<T, C> {
+
+        void read(T o, C context, JsonParser c, String fieldName) throws Exception;
+
+    }
+
+    @FunctionalInterface
+    public interface Setter<T, C, V> {
+
+        void set(T o, C context, V value);
+
+    }
+
+    @FunctionalInterface
+    public interface Patch<T, C> {
+
+        void apply(T o, C context);
+
+    }
+
+    @FunctionalInterface
+    private interface Reader<V> {
+
+        V read(JsonParser c, String fieldName) throws Exception;
+
+    }
+
+    @FunctionalInterface
+    private interface Compiler<T, C> {
+
+        Patch<T, C> compile(JsonParser c, String fieldName) throws Exception;
+
+    }
+
+    private final String typeName;
+    private final HashMap<String, Binding<T, C>> bindings = new HashMap<>();
+    private final HashMap<String, Compiler<T, C>> compilers = new HashMap<>();
+    private final TreeSet<String> ignored = new TreeSet<>();
+    private final Set<String> unhandled = ConcurrentHashMap.newKeySet();
+
+    public FieldBinder(String typeName) {
+        this.typeName = typeName;
+    }
+
+    public FieldBinder<T, C> bind(String fieldName, Binding<T, C> binding) {
+        if (bindings.put(fieldName, binding) != null) {
+            throw new IllegalArgumentException("Duplicate binding for %s.%s".formatted(typeName, fieldName));
+        }
+        return this;
+    }
+
+    //value read once at compile time, the patch only runs the setter
+    private <V> FieldBinder<T, C> typed(String fieldName, Reader<V> reader, Setter<T, C, V> setter) {
+        bind(fieldName, (o, context, c, fn) -> setter.set(o, context, reader.read(c, fn)));
+        compilers.put(fieldName, (c, fn) -> {
+            var v = reader.read(c, fn);
+            return (o, context) -> setter.set(o, context, v);
+        });
+        return this;
+    }
+
+    public FieldBinder<T, C> string(String fieldName, Setter<T, C, String> setter) {
+        return typed(fieldName, (c, fn) -> readString(c), setter);
+    }
+
+    public FieldBinder<T, C> integer(String fieldName, Setter<T, C, Integer> setter) {
+        return typed(fieldName, Util::readInteger, setter);
+    }
+
+    public FieldBinder<T, C> bool(String fieldName, Setter<T, C, Boolean> setter) {
+        return typed(fieldName, Util::readBoolean, setter);
+    }
+
+    public FieldBinder<T, C> stringList(String fieldName, Setter<T, C, ArrayList<String>> setter) {
+        return typed(fieldName, Util::readStringList, setter);
+    }
+
+    public FieldBinder<T, C> ignore(String... fieldNames) {
+        for (var fieldName : fieldNames) {
+            bind(fieldName, (o, context, c, fn) -> c.skipChildren());
+            ignored.add(fieldName);
+        }
+        return this;
+    }
+
+    public boolean isBound(String fieldName) {
+        return bindings.containsKey(fieldName);
+    }
+
+    public boolean isIgnored(String fieldName) {
+        return ignored.contains(fieldName);
+    }
+
+    public SortedSet<String> getIgnored() {
+        return Collections.unmodifiableSortedSet(ignored);
+    }
+
+    //compiles an object of field values into one patch, unknown fields are rejected instead of logged
+    public Patch<T, C> compile(JsonParser c) throws Exception {
+        var patches = new ArrayList<Patch<T, C>>();
+        while (c.nextToken() == JsonToken.FIELD_NAME) {
+            var fieldName = c.currentName();
+            c.nextToken();
+            var compiler = compilers.get(fieldName);
+            if (compiler != null) {
+                patches.add(compiler.compile(c, fieldName));
+            } else if (ignored.contains(fieldName)) {
+                c.skipChildren();
+            } else if (bindings.containsKey(fieldName)) {
+                throw new IllegalArgumentException("Field %s.%s cannot be patched".formatted(typeName, fieldName));
+            } else {
+                throw new IllegalArgumentException("Unknown field name in %s: %s".formatted(typeName, fieldName));
+            }
+        }
+        var list = List.copyOf(patches);
+        return (o, context) -> {
+            for (var patch : list) {
+                patch.apply(o, context);
+            }
+        };
+    }
+
+    public T read(T o, C context, JsonParser c) throws Exception {
+        while (c.nextToken() == JsonToken.FIELD_NAME) {
+            var fieldName = c.currentName();
+            c.nextToken();
+            var binding = bindings.get(fieldName);
+            if (binding != null) {
+                binding.read(o, context, c, fieldName);
+            } else if (unhandled.add(fieldName)) {
+                var node = Util.readTree(c);
+                log("Unhandled field name in %s: %s (%s : %s)", typeName, fieldName, node, node.getNodeType());
+            } else {
+                c.skipChildren();
+            }
+        }
+        return o;
+    }
+
+}
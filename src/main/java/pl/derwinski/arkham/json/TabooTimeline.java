@@ -0,0 +1,173 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Taboo versions of each card code. Besides the versions in card list order
+ * each code keeps its taboo set ids sorted, so the version in effect at a
+ * given taboo set (the last one whose taboo set id is not greater than it)
+ * is found by binary search. Built once from a card list and not modified
+ * afterwards.
+ *
+ * @author morvael
+ */
+public final class TabooTimeline {
+
+    private static final class Versions {
+
+        private Card[] cards = new Card[2];
+        private int[] boundaries = new int[2];
+        private int[] positions = new int[2];
+        private int size;
+
+        private void add(int tabooSetId, Card c) {
+            if (size == cards.length) {
+                cards = Arrays.copyOf(cards, size * 2);
+                boundaries = Arrays.copyOf(boundaries, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            cards[size] = c;
+            //insertion keeps equal boundaries in arrival order, versions mostly arrive ordered already
+            var i = size;
+            while (i > 0 && boundaries[i - 1] > tabooSetId) {
+                boundaries[i] = boundaries[i - 1];
+                positions[i] = positions[i - 1];
+                i--;
+            }
+            boundaries[i] = tabooSetId;
+            positions[i] = size;
+            size++;
+        }
+
+        private void trim() {
+            if (size < cards.length) {
+                cards = Arrays.copyOf(cards, size);
+                boundaries = Arrays.copyOf(boundaries, size);
+                positions = Arrays.copyOf(positions, size);
+            }
+        }
+
+        //index of the last version at or before tabooSetId, -1 when there is none
+        private int floor(int tabooSetId) {
+            var lo = 0;
+            var hi = size;
+            while (lo < hi) {
+                var mid = (lo + hi) >>> 1;
+                if (boundaries[mid] <= tabooSetId) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo - 1;
+        }
+
+    }
+
+    public static TabooTimeline build(Iterable<Card> cards) {
+        var o = new TabooTimeline();
+        var codes = new ArrayList<String>();
+        var errataCodes = new ArrayList<String>();
+        for (var c : cards) {
+            var code = c.getCode();
+            var tabooSetId = c.getTabooSetId() != null ? c.getTabooSetId() : 0;
+            var v = o.versions.get(code);
+            if (v == null) {
+                v = new Versions();
+                o.versions.put(code, v);
+                codes.add(code);
+            }
+            if (tabooSetId > 0 && (v.size == 0 || v.boundaries[v.size - 1] == 0)) {
+                errataCodes.add(code);
+            }
+            v.add(tabooSetId, c);
+        }
+        for (var v : o.versions.values()) {
+            v.trim();
+        }
+        o.codes = Collections.unmodifiableList(codes);
+        o.errataCodes = Collections.unmodifiableList(errataCodes);
+        return o;
+    }
+
+    private final HashMap<String, Versions> versions = new HashMap<>();
+    private List<String> codes;
+    private List<String> errataCodes;
+
+    private TabooTimeline() {
+
+    }
+
+    //all codes, in order of first appearance
+    public List<String> getCodes() {
+        return codes;
+    }
+
+    //codes with at least one taboo version, in order of first taboo version appearance
+    public List<String> getErrataCodes() {
+        return errataCodes;
+    }
+
+    //null when the code is unknown or has no version at or before tabooSetId
+    public Card find(String code, int tabooSetId) {
+        var v = versions.get(code);
+        if (v == null) {
+            return null;
+        }
+        var i = v.floor(tabooSetId);
+        return i >= 0 ? v.cards[v.positions[i]] : null;
+    }
+
+    //all versions in the order of the card list the timeline was built from
+    public List<Card> getVersions(String code) {
+        var v = versions.get(code);
+        return v != null ? Collections.unmodifiableList(Arrays.asList(v.cards)) : List.of();
+    }
+
+    //first taboo set id after tabooSetId at which the code has another version, Integer.MAX_VALUE when there is none
+    public int getNextTabooSetId(String code, int tabooSetId) {
+        var v = versions.get(code);
+        if (v == null) {
+            return Integer.MAX_VALUE;
+        }
+        var i = v.floor(tabooSetId) + 1;
+        return i < v.size ? v.boundaries[i] : Integer.MAX_VALUE;
+    }
+
+    //0 when the code has no taboo version
+    public int getLatestTabooSetId(String code) {
+        var v = versions.get(code);
+        return v != null && v.size > 0 ? v.boundaries[v.size - 1] : 0;
+    }
+
+}
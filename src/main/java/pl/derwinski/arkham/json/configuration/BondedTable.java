@@ -0,0 +1,101 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json.configuration;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import pl.derwinski.arkham.json.Card;
+import pl.derwinski.arkham.json.TabooTimeline;
+
+/**
+ * Bonded cards resolved once for every name they are bonded to and every
+ * taboo set up to the newest bonded version. A card at taboo set N gets the
+ * latest version of each bonded card that is not newer than N, taboo sets
+ * past the newest version share its list.
+ *
+ * @author morvael
+ */
+final class BondedTable {
+
+    static BondedTable build(Map<String, ArrayList<Card>> bondedCards) {
+        var o = new BondedTable();
+        for (var e : bondedCards.entrySet()) {
+            var timeline = TabooTimeline.build(e.getValue());
+            var max = 0;
+            for (var code : timeline.getCodes()) {
+                max = Math.max(max, timeline.getLatestTabooSetId(code));
+            }
+            var byTaboo = new ArrayList<List<Card>>(max + 1);
+            List<Card> previous = null;
+            for (var tb = 0; tb <= max; tb++) {
+                var list = new ArrayList<Card>();
+                for (var code : timeline.getCodes()) {
+                    var bc = timeline.find(code, tb);
+                    if (bc != null) {
+                        list.add(bc);
+                    }
+                }
+                if (list.size() > 1) {
+                    Card.sort(list);
+                }
+                //resolved lists only change at taboo sets that have a bonded version
+                if (previous == null || previous.equals(list) == false) {
+                    previous = Collections.unmodifiableList(list);
+                }
+                byTaboo.add(previous);
+            }
+            o.ordinals.put(e.getKey(), o.resolved.size());
+            o.resolved.add(byTaboo);
+        }
+        return o;
+    }
+
+    private final HashMap<String, Integer> ordinals = new HashMap<>();
+    private final ArrayList<List<List<Card>>> resolved = new ArrayList<>();
+
+    private BondedTable() {
+
+    }
+
+    boolean contains(String name) {
+        return ordinals.containsKey(name);
+    }
+
+    //null when nothing is bonded to the name
+    List<Card> get(String name, int tabooSetId) {
+        var ordinal = ordinals.get(name);
+        if (ordinal == null) {
+            return null;
+        }
+        var byTaboo = resolved.get(ordinal);
+        return byTaboo.get(Math.min(tabooSetId, byTaboo.size() - 1));
+    }
+
+}
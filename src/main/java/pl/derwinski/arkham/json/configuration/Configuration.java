@@ -27,21 +27,26 @@
 package pl.derwinski.arkham.json.configuration;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.json.JsonMapper;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import pl.derwinski.arkham.Util;
 import static pl.derwinski.arkham.Util.log;
 import static pl.derwinski.arkham.Util.nvl;
 import pl.derwinski.arkham.json.Card;
-import pl.derwinski.arkham.json.metadata.Metadata;
+import pl.derwinski.arkham.json.CardContext;
+import pl.derwinski.arkham.json.FieldBinder;
+import pl.derwinski.arkham.json.TabooTimeline;
+import pl.derwinski.arkham.json.metadata.MetadataRegistry;
 
 /**
  *
@@ -49,7 +54,27 @@ import pl.derwinski.arkham.json.metadata.Metadata;
  */
 public final class Configuration {
 
-    private static final HashSet<String> unhandled = new HashSet<>();
+    private static final Set<String> unhandled = ConcurrentHashMap.newKeySet();
+
+    private static final class PackFilter {
+
+        private final MetadataRegistry.Dimension packs;
+        private final int size;
+        private final BitSet allowed = new BitSet();
+        private final int rcore;
+
+        private PackFilter(MetadataRegistry.Dimension packs, Set<String> packFilter) {
+            this.packs = packs;
+            this.size = packs.size();
+            for (var i = 1; i < size; i++) {
+                if (packFilter != null && packFilter.contains(packs.getCode(i))) {
+                    allowed.set(i);
+                }
+            }
+            this.rcore = packs.find("rcore");
+        }
+
+    }
 
     public static Configuration loadConfiguration() throws Exception {
         return loadConfiguration("run/configuration.json");
@@ -57,7 +82,7 @@ public final class Configuration {
 
     public static Configuration loadConfiguration(String path) throws Exception {
         var file = new File(path);
-        var c = new JsonMapper().readTree(file);
+        var c = Util.readTree(file);
         if (c != null) {
             return loadConfiguration(c);
         } else {
@@ -92,7 +117,7 @@ public final class Configuration {
                         o.flipped = Collections.unmodifiableSet(Util.readStringSet(c, fieldName));
                         break;
                     case "overrides":
-                        o.overrides = Collections.unmodifiableMap(Util.readStringJsonNodeMap(c, fieldName));
+                        o.overrides = Collections.unmodifiableMap(compileOverrides(Util.readStringJsonNodeMap(c, fieldName)));
                         break;
                     case "extras":
                         o.extras = Collections.unmodifiableList(Util.readJsonNodeList(c, fieldName));
@@ -125,19 +150,37 @@ public final class Configuration {
         }
     }
 
+    private static HashMap<String, FieldBinder.Patch<Card, CardContext>> compileOverrides(Map<String, JsonNode> map) throws Exception {
+        var result = new HashMap<String, FieldBinder.Patch<Card, CardContext>>();
+        for (var e : map.entrySet()) {
+            try {
+                var patch = Card.compileOverride(e.getValue());
+                if (patch != null) {
+                    result.put(e.getKey(), patch);
+                }
+            } catch (IllegalArgumentException ex) {
+                throw new IllegalArgumentException("Invalid override for %s: %s".formatted(e.getKey(), ex.getMessage()), ex);
+            }
+        }
+        return result;
+    }
+
     private List<Parallel> parallel;
     private Set<String> allParallel;
     private Set<String> ignored;
     private Set<String> skipBonded;
     private Set<String> flipped;
-    private Map<String, JsonNode> overrides;
+    private Map<String, FieldBinder.Patch<Card, CardContext>> overrides;
     private List<JsonNode> extras;
     private Map<String, String> cardBacks;
     private Set<String> packFilter;
     private LinkedHashMap<String, String> imageMapping;
     private Set<String> ignoredPaths;
 
+    private volatile PackFilter packFilterOrdinals;
+
     private final HashMap<String, ArrayList<Card>> bondedCards = new HashMap<>();
+    private volatile BondedTable bondedTable = BondedTable.build(Map.of());
     private final HashMap<String, ArrayList<Card>> parallelCards = new HashMap<>();
 
     private Configuration() {
@@ -157,25 +200,37 @@ public final class Configuration {
         return flipped != null && flipped.contains(c.getId());
     }
 
-    public void override(Metadata metadata, Card c) throws Exception {
-        c.override(this, metadata, overrides.get(c.getId()));
+    public void override(CardContext context, Card c) {
+        c.override(this, context, overrides.get(c.getId()));
     }
 
     public String getCardBack(Card c) {
         return cardBacks != null ? cardBacks.get(c.getId()) : null;
     }
 
+    //packFilter resolved to pack ordinals, rebuilt when codes are appended to the registry
+    private PackFilter getPackFilter(MetadataRegistry registry) {
+        var f = packFilterOrdinals;
+        var packs = registry.getPacks();
+        if (f == null || f.packs != packs || f.size != packs.size()) {
+            f = new PackFilter(packs, packFilter);
+            packFilterOrdinals = f;
+        }
+        return f;
+    }
+
     public boolean filter(Card c) {
         if (c.getHidden() != null && c.getHidden()) {
             return false;
         }
-        if (c.getPackCode() == null) {
+        if (c.getPackOrdinal() == 0) {
             return false;
         }
-        if (packFilter == null || packFilter.contains(c.getPackCode()) == false) {
+        var f = getPackFilter(c.getRegistry());
+        if (f.allowed.get(c.getPackOrdinal()) == false) {
             return false;
         }
-        if ("rcore".equals(c.getPackCode()) && c.getPosition() > 103 && c.getPosition() < 183) {
+        if (c.getPackOrdinal() == f.rcore && c.getPosition() > 103 && c.getPosition() < 183) {
             return false;
         }
         return true;
@@ -185,6 +240,21 @@ public final class Configuration {
         return imageMapping.getOrDefault(databaseId, databaseId);
     }
 
+    public LinkedHashMap<String, String> getImageMapping() {
+        return imageMapping;
+    }
+
+    public HashMap<String, ArrayList<Card>> getBondedCards() {
+        return bondedCards;
+    }
+
+    public void restore(LinkedHashMap<String, String> imageMapping, HashMap<String, ArrayList<Card>> bondedCards) {
+        this.imageMapping = imageMapping;
+        this.bondedCards.clear();
+        this.bondedCards.putAll(bondedCards);
+        bondedTable = BondedTable.build(bondedCards);
+    }
+
     public boolean isIgnoredPath(String relativePath) {
         for (var ignoredPath : ignoredPaths) {
             if (relativePath.startsWith(ignoredPath)) {
@@ -195,74 +265,54 @@ public final class Configuration {
     }
 
     public boolean hasBonded(Card c) {
-        return bondedCards.containsKey(c.getName()) && isSkipBonded(c) == false;
+        return bondedTable.contains(c.getName()) && isSkipBonded(c) == false;
     }
 
+    //latest version of each bonded card that is <= this version, resolved once after processing
     public List<Card> getBonded(Card c) {
-        var tb = nvl(c.getTabooSetId(), 0);
-        var baseList = bondedCards.get(c.getName());
-        var usedCodes = new HashSet<String>();
-        var list = new ArrayList<Card>();
-        for (var bc : baseList.reversed()) { //pick latest version that is <= this version
-            var btb = nvl(bc.getTabooSetId(), 0);
-            if (btb <= tb && usedCodes.add(bc.getCode())) {
-                list.add(bc);
-            }
-        }
-        if (list.size() > 1) {
-            list.sort(null);
-        }
-        return list;
+        return bondedTable.get(c.getName(), nvl(c.getTabooSetId(), 0));
     }
 
-    public void process(Metadata metadata, ArrayList<Card> cards) throws Exception {
+    public void process(CardContext context, ArrayList<Card> cards) throws Exception {
         // read and add extras (full cards defined in configuration)
         for (var c : extras) {
-            var o = Card.readCard(this, metadata, c);
-            //override(metadata, o);
+            var o = Card.readCard(this, context, c);
+            //override(context, o);
             cards.add(o);
         }
         // eliminate newer taboos that are duplicates (except id and tabooSetId), requires preliminary sort
-        cards.sort(null);
-        var tabooCards = new LinkedHashMap<String, Card>();
-        var maxTabooSetId = new HashMap<String, Integer>();
-        for (var c : cards) {
-            if (c.getId().contains("-")) {
-                if (tabooCards.containsKey(c.getCode()) == false) {
-                    tabooCards.put(c.getCode(), null);
-                }
-                var mts = maxTabooSetId.getOrDefault(c.getCode(), 0);
-                if (c.getTabooSetId() > mts) {
-                    maxTabooSetId.put(c.getCode(), c.getTabooSetId());
-                }
-            }
-        }
-        var originalCards = new LinkedHashMap<String, Card>();
-        var it = cards.iterator();
-        while (it.hasNext()) {
-            var c = it.next();
-            if (c.getId().contains("-")) {
-                var pc = tabooCards.get(c.getCode());
-                if (c.tabooEquals(pc) == false) {
-                    tabooCards.put(c.getCode(), c);
-                } else {
-                    it.remove();
+        // (the only full sort, generated cards are sorted as separate runs and merged in)
+        Card.sort(cards);
+        var timeline = TabooTimeline.build(cards);
+        var duplicates = Collections.newSetFromMap(new IdentityHashMap<Card, Boolean>());
+        var latestTabooSetId = context.getMetadata().getLatestTabooSetId();
+        var tabooRun = new ArrayList<Card>();
+        for (var code : timeline.getErrataCodes()) {
+            Card pc = null;
+            for (var c : timeline.getVersions(code)) {
+                if (c.getTabooSetId() != null && c.getTabooSetId() > 0) {
+                    if (c.tabooEquals(pc)) {
+                        duplicates.add(c);
+                    } else {
+                        pc = c;
+                    }
                 }
-            } else if (tabooCards.containsKey(c.getCode())) {
-                originalCards.put(c.getCode(), c);
             }
-        }
-        var latestTabooSetId = metadata.getLatestTabooSetId();
-        for (var c : tabooCards.values()) {
-            var mts = maxTabooSetId.get(c.getCode());
+            // restore the original card after the last taboo set that changed it
+            var mts = timeline.getLatestTabooSetId(code);
             if (mts < latestTabooSetId) {
-                var originalCard = originalCards.get(c.getCode());
+                var originalCard = timeline.find(code, 0);
                 var o = originalCard.tabooClone(mts + 1);
                 imageMapping.put(o.getId(), getImageMapping(originalCard.getId()));
-                cards.add(o);
+                tabooRun.add(o);
             }
         }
-        // extra processing once duplicates removed
+        if (duplicates.isEmpty() == false) {
+            cards.removeIf(duplicates::contains);
+        }
+        Card.sort(tabooRun);
+        merge(cards, tabooRun);
+        // extra processing once duplicates removed, cards are in canonical order so the lists built here are too
         for (var c : cards) {
             // register bonded cards under the name of the card they are bonded to
             var bondedTo = c.getBondedTo();
@@ -284,6 +334,8 @@ public final class Configuration {
                 list.add(c);
             }
         }
+        bondedTable = BondedTable.build(bondedCards);
+        var parallelRun = new ArrayList<Card>();
         for (var p : parallel) {
             String firstCodeR = null;
             var sortAdd = 0;
@@ -295,14 +347,12 @@ public final class Configuration {
                     var clr = parallelCards.get(codeR);
                     var clp = parallelCards.get(codeP);
                     if (clr != null && clp != null) {
-                        clr.sort(null);
-                        clp.sort(null);
                         for (var cr : clr) {
                             cr.parallelContent();
                             for (var cp : clp) {
                                 cp.miniCode(p.isSameArt() ? firstCodeR : cp.getCode());
-                                cards.add(cp.parallelClone(cr, cp.getId(), sortAdd, p.isSameArt() ? cr.getCode() : cp.getCode()));
-                                cards.add(cr.parallelClone(cp, cp.getId(), sortAdd + 1, cr.getCode()));
+                                parallelRun.add(cp.parallelClone(cr, cp.getId(), sortAdd, p.isSameArt() ? cr.getCode() : cp.getCode()));
+                                parallelRun.add(cr.parallelClone(cp, cp.getId(), sortAdd + 1, cr.getCode()));
                             }
                         }
                     } else {
@@ -312,10 +362,15 @@ public final class Configuration {
                 }
             }
         }
-        // sort cards according to canonical order again (same for bondedCards lists)
-        cards.sort(null);
-        for (var list : bondedCards.values()) {
-            list.sort(null);
+        Card.sort(parallelRun);
+        merge(cards, parallelRun);
+    }
+
+    private static void merge(ArrayList<Card> cards, ArrayList<Card> run) {
+        if (run.isEmpty() == false) {
+            var merged = Card.merge(cards, run);
+            cards.clear();
+            cards.addAll(merged);
         }
     }
 
@@ -3,8 +3,8 @@ package pl.derwinski.arkham.json.configuration;
 import com.fasterxml.jackson.databind.JsonNode;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import pl.derwinski.arkham.Util;
 import static pl.derwinski.arkham.Util.log;
 import static pl.derwinski.arkham.Util.nvl;
@@ -15,7 +15,7 @@ import static pl.derwinski.arkham.Util.nvl;
  */
 public final class Parallel {
 
-    private static final HashSet<String> unhandled = new HashSet<>();
+    private static final Set<String> unhandled = ConcurrentHashMap.newKeySet();
 
     public static ArrayList<Parallel> readParallels(JsonNode c) throws Exception {
         if (c.isArray()) {
@@ -26,12 +26,15 @@
  */
 package pl.derwinski.arkham.json.metadata;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.json.JsonMapper;
 import java.io.File;
+import java.io.Serializable;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import pl.derwinski.arkham.Language;
 import pl.derwinski.arkham.Util;
 import static pl.derwinski.arkham.Util.log;
@@ -40,16 +43,18 @@ import static pl.derwinski.arkham.Util.log;
  *
  * @author morvael
  */
-public final class Metadata {
+public final class Metadata implements Serializable {
 
-    private static final HashSet<String> unhandled = new HashSet<>();
-    private static final HashSet<String> unhandledPacks = new HashSet<>();
-    private static final HashSet<String> unhandledCycles = new HashSet<>();
-    private static final HashSet<String> unhandledEncounters = new HashSet<>();
-    private static final HashSet<Integer> unhandledTaboos = new HashSet<>();
-    private static final HashSet<String> unhandledTypes = new HashSet<>();
-    private static final HashSet<String> unhandledFactions = new HashSet<>();
-    private static final HashSet<String> unhandledSubtypes = new HashSet<>();
+    private static final long serialVersionUID = 1L;
+
+    private static final Set<String> unhandled = ConcurrentHashMap.newKeySet();
+    private static final Set<String> unhandledPacks = ConcurrentHashMap.newKeySet();
+    private static final Set<String> unhandledCycles = ConcurrentHashMap.newKeySet();
+    private static final Set<String> unhandledEncounters = ConcurrentHashMap.newKeySet();
+    private static final Set<Integer> unhandledTaboos = ConcurrentHashMap.newKeySet();
+    private static final Set<String> unhandledTypes = ConcurrentHashMap.newKeySet();
+    private static final Set<String> unhandledFactions = ConcurrentHashMap.newKeySet();
+    private static final Set<String> unhandledSubtypes = ConcurrentHashMap.newKeySet();
 
     public static Metadata loadMetadata(Language lng) throws Exception {
         var symbol = lng.name().toLowerCase();
@@ -58,55 +63,66 @@ public final class Metadata {
     }
 
     public static Metadata loadMetadata(String path) throws Exception {
-        var file = new File(path);
-        var c = new JsonMapper().readTree(file).findValue("data");
-        if (c != null) {
-            return loadMetadata(c);
-        } else {
-            log("Error reading Metadata file");
-            return null;
+        try (var p = Util.createParser(new File(path))) {
+            if (Util.findField(p, "data")) {
+                return loadMetadata(p);
+            } else {
+                log("Error reading Metadata file");
+                return null;
+            }
         }
     }
 
     public static Metadata loadMetadata(JsonNode c) throws Exception {
-        if (c.isObject()) {
+        try (var p = Util.createParser(c)) {
+            return loadMetadata(p);
+        }
+    }
+
+    public static Metadata loadMetadata(JsonParser c) throws Exception {
+        if (c.currentToken() == JsonToken.START_OBJECT) {
             var o = new Metadata();
-            var it = c.fieldNames();
-            while (it.hasNext()) {
-                var fieldName = it.next();
+            while (c.nextToken() == JsonToken.FIELD_NAME) {
+                var fieldName = c.currentName();
+                c.nextToken();
                 switch (fieldName) {
                     case "pack":
-                        o.packs = Collections.unmodifiableMap(MetadataPack.readMetadataPacks(c.get(fieldName)));
+                        o.packs = Collections.unmodifiableMap(MetadataPack.readMetadataPacks(c));
                         break;
                     case "cycle":
-                        o.cycles = Collections.unmodifiableMap(MetadataCycle.readMetadataCycles(c.get(fieldName)));
+                        o.cycles = Collections.unmodifiableMap(MetadataCycle.readMetadataCycles(c));
                         break;
                     case "card_encounter_set":
-                        o.encounters = Collections.unmodifiableMap(MetadataEncounterSet.readMetadataEncounterSets(c.get(fieldName)));
+                        o.encounters = Collections.unmodifiableMap(MetadataEncounterSet.readMetadataEncounterSets(c));
                         break;
                     case "taboo_set":
-                        o.taboos = Collections.unmodifiableMap(MetadataTabooSet.readMetadataTabooSets(c.get(fieldName)));
+                        o.taboos = Collections.unmodifiableMap(MetadataTabooSet.readMetadataTabooSets(c));
                         break;
                     default:
                         if (unhandled.add(fieldName)) {
-                            log("Unhandled field name in Metadata: %s (%s : %s)", fieldName, c.get(fieldName), c.get(fieldName).getNodeType());
+                            var node = Util.readTree(c);
+                            log("Unhandled field name in Metadata: %s (%s : %s)", fieldName, node, node.getNodeType());
+                        } else {
+                            c.skipChildren();
                         }
                         break;
                 }
             }
+            o.registry = new MetadataRegistry(o, o.packs.keySet(), o.encounters.keySet(), o.taboos.values());
             return o;
         } else {
-            if (c.isNull() == false) {
-                log("Error reading Metadata object: %s", c.asText());
+            if (c.currentToken() != JsonToken.VALUE_NULL) {
+                log("Error reading Metadata object: %s", Util.readText(c));
             }
             return null;
         }
     }
 
-    private Map<String, MetadataPack> packs;
-    private Map<String, MetadataCycle> cycles;
-    private Map<String, MetadataEncounterSet> encounters;
-    private Map<Integer, MetadataTabooSet> taboos;
+    private Map<String, MetadataPack> packs = Collections.emptyMap();
+    private Map<String, MetadataCycle> cycles = Collections.emptyMap();
+    private Map<String, MetadataEncounterSet> encounters = Collections.emptyMap();
+    private Map<Integer, MetadataTabooSet> taboos = Collections.emptyMap();
+    private MetadataRegistry registry;
 
     private Metadata() {
 
@@ -127,6 +143,12 @@ public final class Metadata {
         }
     }
 
+    //null when the pack is unknown
+    public String getCycleCode(String packCode) {
+        var p = packCode != null ? packs.get(packCode) : null;
+        return p != null ? p.getCycleCode() : null;
+    }
+
     public String getCycleName(String cycleCode) {
         if (cycleCode == null) {
             return null;
@@ -161,8 +183,9 @@ public final class Metadata {
         if (tabooSetId == null) {
             return null;
         }
-        if (tabooSetId == 0) {
-            return "None";
+        var name = registry.getTabooName(tabooSetId);
+        if (name != null) {
+            return name;
         }
         var es = taboos.get(tabooSetId);
         if (es != null) {
@@ -259,13 +282,11 @@ public final class Metadata {
     }
 
     public int getLatestTabooSetId() {
-        var max = 0;
-        for (var t : taboos.values()) {
-            if (t.getId() != null && t.getId() > max) {
-                max = t.getId();
-            }
-        }
-        return max;
+        return registry.getLatestTabooSetId();
+    }
+
+    public MetadataRegistry getRegistry() {
+        return registry;
     }
 
 }
@@ -26,69 +26,54 @@
  */
 package pl.derwinski.arkham.json.metadata;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import java.util.HashSet;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.Serializable;
 import java.util.LinkedHashMap;
 import static pl.derwinski.arkham.Util.log;
 import static pl.derwinski.arkham.Util.nvl;
-import static pl.derwinski.arkham.Util.readInteger;
-import static pl.derwinski.arkham.Util.readString;
+import static pl.derwinski.arkham.Util.readText;
+import pl.derwinski.arkham.json.FieldBinder;
 
 /**
  *
  * @author morvael
  */
-public final class MetadataCycle {
+public final class MetadataCycle implements Serializable {
 
-    private static final HashSet<String> unhandled = new HashSet<>();
+    private static final long serialVersionUID = 1L;
 
-    public static LinkedHashMap<String, MetadataCycle> readMetadataCycles(JsonNode c) throws Exception {
-        if (c.isArray()) {
+    private static final FieldBinder<MetadataCycle, Void> BINDER = new FieldBinder<MetadataCycle, Void>("MetadataCycle")
+            .string("code", (o, x, v) -> o.code = v)
+            .integer("position", (o, x, v) -> o.position = v)
+            .string("name", (o, x, v) -> o.name = v)
+            .string("real_name", (o, x, v) -> {
+                o.realName = v;
+                o.name = nvl(o.name, v);
+            });
+
+    public static LinkedHashMap<String, MetadataCycle> readMetadataCycles(JsonParser c) throws Exception {
+        if (c.currentToken() == JsonToken.START_ARRAY) {
             var result = new LinkedHashMap<String, MetadataCycle>();
-            for (var i = 0; i < c.size(); i++) {
-                var mc = readMetadataCycle(c.get(i));
+            while (c.nextToken() != JsonToken.END_ARRAY) {
+                var mc = readMetadataCycle(c);
                 result.put(mc.getCode(), mc);
             }
             return result;
         } else {
-            if (c.isNull() == false) {
-                log("Error reading MetadataCycle array: %s", c.asText());
+            if (c.currentToken() != JsonToken.VALUE_NULL) {
+                log("Error reading MetadataCycle array: %s", readText(c));
             }
             return null;
         }
     }
 
-    public static MetadataCycle readMetadataCycle(JsonNode c) throws Exception {
-        if (c.isObject()) {
-            var o = new MetadataCycle();
-            var it = c.fieldNames();
-            while (it.hasNext()) {
-                var fieldName = it.next();
-                switch (fieldName) {
-                    case "code":
-                        o.code = readString(c, fieldName);
-                        break;
-                    case "position":
-                        o.position = readInteger(c, fieldName);
-                        break;
-                    case "name":
-                        o.name = readString(c, fieldName);
-                        break;
-                    case "real_name":
-                        o.realName = readString(c, fieldName);
-                        o.name = nvl(o.name, o.realName);
-                        break;
-                    default:
-                        if (unhandled.add(fieldName)) {
-                            log("Unhandled field name in MetadataCycle: %s (%s : %s)", fieldName, c.get(fieldName), c.get(fieldName).getNodeType());
-                        }
-                        break;
-                }
-            }
-            return o;
+    public static MetadataCycle readMetadataCycle(JsonParser c) throws Exception {
+        if (c.currentToken() == JsonToken.START_OBJECT) {
+            return BINDER.read(new MetadataCycle(), null, c);
         } else {
-            if (c.isNull() == false) {
-                log("Error reading MetadataCycle object: %s", c.asText());
+            if (c.currentToken() != JsonToken.VALUE_NULL) {
+                log("Error reading MetadataCycle object: %s", readText(c));
             }
             return null;
         }
@@ -26,71 +26,55 @@
  */
 package pl.derwinski.arkham.json.metadata;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import java.util.HashSet;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.Serializable;
 import java.util.LinkedHashMap;
 import static pl.derwinski.arkham.Util.log;
 import static pl.derwinski.arkham.Util.nvl;
-import static pl.derwinski.arkham.Util.readString;
+import static pl.derwinski.arkham.Util.readText;
+import pl.derwinski.arkham.json.FieldBinder;
 
 /**
  *
  * @author morvael
  */
-public final class MetadataEncounterSet {
+public final class MetadataEncounterSet implements Serializable {
 
-    private static final HashSet<String> unhandled = new HashSet<>();
+    private static final long serialVersionUID = 1L;
 
-    public static LinkedHashMap<String, MetadataEncounterSet> readMetadataEncounterSets(JsonNode c) throws Exception {
-        if (c.isArray()) {
+    private static final FieldBinder<MetadataEncounterSet, Void> BINDER = new FieldBinder<MetadataEncounterSet, Void>("MetadataEncounterSet")
+            .string("code", (o, x, v) -> o.code = v)
+            .string("pack_code", (o, x, v) -> o.packCode = v)
+            .string("locale", (o, x, v) -> o.locale = v)
+            .string("name", (o, x, v) -> o.name = v)
+            .string("real_name", (o, x, v) -> {
+                o.realName = v;
+                o.name = nvl(o.name, v);
+            });
+
+    public static LinkedHashMap<String, MetadataEncounterSet> readMetadataEncounterSets(JsonParser c) throws Exception {
+        if (c.currentToken() == JsonToken.START_ARRAY) {
             var result = new LinkedHashMap<String, MetadataEncounterSet>();
-            for (var i = 0; i < c.size(); i++) {
-                var me = readMetadataEncounterSet(c.get(i));
+            while (c.nextToken() != JsonToken.END_ARRAY) {
+                var me = readMetadataEncounterSet(c);
                 result.put(me.getCode(), me);
             }
             return result;
         } else {
-            if (c.isNull() == false) {
-                log("Error reading MetadataEncounterSet array: %s", c.asText());
+            if (c.currentToken() != JsonToken.VALUE_NULL) {
+                log("Error reading MetadataEncounterSet array: %s", readText(c));
             }
             return null;
         }
     }
 
-    public static MetadataEncounterSet readMetadataEncounterSet(JsonNode c) throws Exception {
-        if (c.isObject()) {
-            var o = new MetadataEncounterSet();
-            var it = c.fieldNames();
-            while (it.hasNext()) {
-                var fieldName = it.next();
-                switch (fieldName) {
-                    case "code":
-                        o.code = readString(c, fieldName);
-                        break;
-                    case "pack_code":
-                        o.packCode = readString(c, fieldName);
-                        break;
-                    case "locale":
-                        o.locale = readString(c, fieldName);
-                        break;
-                    case "name":
-                        o.name = readString(c, fieldName);
-                        break;
-                    case "real_name":
-                        o.realName = readString(c, fieldName);
-                        o.name = nvl(o.name, o.realName);
-                        break;
-                    default:
-                        if (unhandled.add(fieldName)) {
-                            log("Unhandled field name in MetadataEncounterSet: %s (%s : %s)", fieldName, c.get(fieldName), c.get(fieldName).getNodeType());
-                        }
-                        break;
-                }
-            }
-            return o;
+    public static MetadataEncounterSet readMetadataEncounterSet(JsonParser c) throws Exception {
+        if (c.currentToken() == JsonToken.START_OBJECT) {
+            return BINDER.read(new MetadataEncounterSet(), null, c);
         } else {
-            if (c.isNull() == false) {
-                log("Error reading MetadataEncounterSet object: %s", c.asText());
+            if (c.currentToken() != JsonToken.VALUE_NULL) {
+                log("Error reading MetadataEncounterSet object: %s", readText(c));
             }
             return null;
         }
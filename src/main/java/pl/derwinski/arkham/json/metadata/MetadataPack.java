@@ -26,93 +26,63 @@
  */
 package pl.derwinski.arkham.json.metadata;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import java.util.HashSet;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.Serializable;
 import java.util.LinkedHashMap;
 import java.util.List;
 import static pl.derwinski.arkham.Util.log;
 import static pl.derwinski.arkham.Util.nvl;
-import static pl.derwinski.arkham.Util.readInteger;
-import static pl.derwinski.arkham.Util.readString;
-import static pl.derwinski.arkham.Util.readStringList;
+import static pl.derwinski.arkham.Util.readText;
 import static pl.derwinski.arkham.Util.unmodifiable;
+import pl.derwinski.arkham.json.FieldBinder;
 
 /**
  *
  * @author morvael
  */
-public final class MetadataPack {
-
-    private static final HashSet<String> unhandled = new HashSet<>();
-
-    public static LinkedHashMap<String, MetadataPack> readMetadataPacks(JsonNode c) throws Exception {
-        if (c.isArray()) {
+public final class MetadataPack implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final FieldBinder<MetadataPack, Void> BINDER = new FieldBinder<MetadataPack, Void>("MetadataPack")
+            .string("code", (o, x, v) -> o.code = v)
+            .string("cycle_code", (o, x, v) -> o.cycleCode = v)
+            .integer("position", (o, x, v) -> o.position = v)
+            .string("name", (o, x, v) -> o.name = v)
+            .string("real_name", (o, x, v) -> {
+                o.realName = v;
+                o.name = nvl(o.name, v);
+            })
+            .string("type", (o, x, v) -> o.type = v)
+            .integer("chapter", (o, x, v) -> o.chapter = v)
+            .string("date_release", (o, x, v) -> o.dateRelease = v)
+            .integer("size", (o, x, v) -> o.size = v)
+            .string("reprint_type", (o, x, v) -> o.reprintType = v)
+            .stringList("reprint_packs", (o, x, v) -> o.reprintPacks = unmodifiable(v));
+
+    public static LinkedHashMap<String, MetadataPack> readMetadataPacks(JsonParser c) throws Exception {
+        if (c.currentToken() == JsonToken.START_ARRAY) {
             var result = new LinkedHashMap<String, MetadataPack>();
-            for (var i = 0; i < c.size(); i++) {
-                var mp = readMetadataPack(c.get(i));
+            while (c.nextToken() != JsonToken.END_ARRAY) {
+                var mp = readMetadataPack(c);
                 result.put(mp.getCode(), mp);
             }
             return result;
         } else {
-            if (c.isNull() == false) {
-                log("Error reading MetadataPack array: %s", c.asText());
+            if (c.currentToken() != JsonToken.VALUE_NULL) {
+                log("Error reading MetadataPack array: %s", readText(c));
             }
             return null;
         }
     }
 
-    public static MetadataPack readMetadataPack(JsonNode c) throws Exception {
-        if (c.isObject()) {
-            var o = new MetadataPack();
-            var it = c.fieldNames();
-            while (it.hasNext()) {
-                var fieldName = it.next();
-                switch (fieldName) {
-                    case "code":
-                        o.code = readString(c, fieldName);
-                        break;
-                    case "cycle_code":
-                        o.cycleCode = readString(c, fieldName);
-                        break;
-                    case "position":
-                        o.position = readInteger(c, fieldName);
-                        break;
-                    case "name":
-                        o.name = readString(c, fieldName);
-                        break;
-                    case "real_name":
-                        o.realName = readString(c, fieldName);
-                        o.name = nvl(o.name, o.realName);
-                        break;
-                    case "type":
-                        o.type = readString(c, fieldName);
-                        break;
-                    case "chapter":
-                        o.chapter = readInteger(c, fieldName);
-                        break;
-                    case "date_release":
-                        o.dateRelease = readString(c, fieldName);
-                        break;
-                    case "size":
-                        o.size = readInteger(c, fieldName);
-                        break;
-                    case "reprint_type":
-                        o.reprintType = readString(c, fieldName);
-                        break;
-                    case "reprint_packs":
-                        o.reprintPacks = unmodifiable(readStringList(c, fieldName));
-                        break;
-                    default:
-                        if (unhandled.add(fieldName)) {
-                            log("Unhandled field name in MetadataPack: %s (%s : %s)", fieldName, c.get(fieldName), c.get(fieldName).getNodeType());
-                        }
-                        break;
-                }
-            }
-            return o;
+    public static MetadataPack readMetadataPack(JsonParser c) throws Exception {
+        if (c.currentToken() == JsonToken.START_OBJECT) {
+            return BINDER.read(new MetadataPack(), null, c);
         } else {
-            if (c.isNull() == false) {
-                log("Error reading MetadataPack object: %s", c.asText());
+            if (c.currentToken() != JsonToken.VALUE_NULL) {
+                log("Error reading MetadataPack object: %s", readText(c));
             }
             return null;
         }
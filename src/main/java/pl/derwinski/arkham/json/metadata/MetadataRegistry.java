@@ -0,0 +1,248 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package pl.derwinski.arkham.json.metadata;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Dense int ordinals for pack, encounter, faction, type and subtype codes of
+ * one Metadata, with names resolved through arrays. Ordinal 0 stands for a
+ * missing code. Codes known to Metadata get their ordinals at load time, codes
+ * seen only on cards (overrides, unhandled codes) are appended on first use.
+ *
+ * @author morvael
+ */
+public final class MetadataRegistry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final class Dimension implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private transient ConcurrentHashMap<String, Integer> ordinals = new ConcurrentHashMap<>();
+        private volatile String[] codes = new String[]{null};
+        private volatile String[] names = new String[]{null};
+
+        private Dimension() {
+
+        }
+
+        private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+            ois.defaultReadObject();
+            ordinals = new ConcurrentHashMap<>();
+            for (var i = 1; i < codes.length; i++) {
+                ordinals.put(codes[i], i);
+            }
+        }
+
+        private int intern(String code, Function<String, String> nameLookup) {
+            if (code == null) {
+                return 0;
+            }
+            var ordinal = ordinals.get(code);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            synchronized (this) {
+                ordinal = ordinals.get(code);
+                if (ordinal != null) {
+                    return ordinal;
+                }
+                var name = nameLookup.apply(code);
+                var n = codes.length;
+                var newCodes = Arrays.copyOf(codes, n + 1);
+                var newNames = Arrays.copyOf(names, n + 1);
+                newCodes[n] = code;
+                newNames[n] = name;
+                names = newNames;
+                codes = newCodes;
+                ordinals.put(code, n);
+                return n;
+            }
+        }
+
+        public int find(String code) {
+            if (code == null) {
+                return 0;
+            }
+            var ordinal = ordinals.get(code);
+            return ordinal != null ? ordinal : -1;
+        }
+
+        public String getCode(int ordinal) {
+            return codes[ordinal];
+        }
+
+        public String getName(int ordinal) {
+            return names[ordinal];
+        }
+
+        public int size() {
+            return codes.length;
+        }
+
+    }
+
+    private final Metadata metadata;
+    private final Dimension packs = new Dimension();
+    private final Dimension encounters = new Dimension();
+    private final Dimension factions = new Dimension();
+    private final Dimension types = new Dimension();
+    private final Dimension subtypes = new Dimension();
+    private final Dimension traits = new Dimension();
+    private transient ConcurrentHashMap<String, BitSet> traitSets = new ConcurrentHashMap<>();
+    private final String[] tabooNames;
+    private final int latestTabooSetId;
+
+    MetadataRegistry(Metadata metadata, Iterable<String> packCodes, Iterable<String> encounterCodes, Iterable<MetadataTabooSet> tabooSets) {
+        this.metadata = metadata;
+        for (var code : packCodes) {
+            internPack(code);
+        }
+        for (var code : encounterCodes) {
+            internEncounter(code);
+        }
+        var max = 0;
+        for (var t : tabooSets) {
+            if (t.getId() != null && t.getId() > max) {
+                max = t.getId();
+            }
+        }
+        latestTabooSetId = max;
+        tabooNames = new String[max + 1];
+        tabooNames[0] = "None";
+        for (var t : tabooSets) {
+            if (t.getId() != null && t.getId() > 0) {
+                tabooNames[t.getId()] = t.getName();
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+        ois.defaultReadObject();
+        traitSets = new ConcurrentHashMap<>();
+    }
+
+    public int internPack(String code) {
+        return packs.intern(code, metadata::getPackName);
+    }
+
+    public int internEncounter(String code) {
+        return encounters.intern(code, metadata::getEncounterName);
+    }
+
+    public int internFaction(String code) {
+        return factions.intern(code, metadata::getFactionName);
+    }
+
+    public int internType(String code) {
+        return types.intern(code, metadata::getTypeName);
+    }
+
+    public int internSubtype(String code) {
+        return subtypes.intern(code, metadata::getSubtypeName);
+    }
+
+    public int internTrait(String trait) {
+        return traits.intern(trait, Function.identity());
+    }
+
+    //set of trait ordinals of a dotted trait string ("Item. Tome."), shared by all cards with that string, do not modify
+    public BitSet getTraitSet(String dotted) {
+        return dotted != null ? traitSets.computeIfAbsent(dotted, this::parseTraits) : null;
+    }
+
+    private BitSet parseTraits(String dotted) {
+        var bits = new BitSet();
+        var start = 0;
+        while (start <= dotted.length()) {
+            var end = dotted.indexOf('.', start);
+            if (end < 0) {
+                end = dotted.length();
+            }
+            var trait = dotted.substring(start, end).trim();
+            if (trait.length() > 0) {
+                bits.set(internTrait(trait));
+            }
+            start = end + 1;
+        }
+        return bits;
+    }
+
+    //ordinals of the given trait names (without the trailing dot), unknown names are left out
+    public BitSet getTraitMask(String... names) {
+        var bits = new BitSet();
+        for (var name : names) {
+            var ordinal = traits.find(name);
+            if (ordinal > 0) {
+                bits.set(ordinal);
+            }
+        }
+        return bits;
+    }
+
+    public Dimension getPacks() {
+        return packs;
+    }
+
+    public Dimension getEncounters() {
+        return encounters;
+    }
+
+    public Dimension getFactions() {
+        return factions;
+    }
+
+    public Dimension getTypes() {
+        return types;
+    }
+
+    public Dimension getSubtypes() {
+        return subtypes;
+    }
+
+    public Dimension getTraits() {
+        return traits;
+    }
+
+    //null when the id is not a known taboo set
+    public String getTabooName(int tabooSetId) {
+        return tabooSetId >= 0 && tabooSetId < tabooNames.length ? tabooNames[tabooSetId] : null;
+    }
+
+    public int getLatestTabooSetId() {
+        return latestTabooSetId;
+    }
+
+}
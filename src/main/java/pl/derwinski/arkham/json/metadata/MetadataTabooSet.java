@@ -26,67 +26,50 @@
  */
 package pl.derwinski.arkham.json.metadata;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import java.util.HashSet;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.Serializable;
 import java.util.LinkedHashMap;
 import static pl.derwinski.arkham.Util.log;
-import static pl.derwinski.arkham.Util.readInteger;
-import static pl.derwinski.arkham.Util.readString;
+import static pl.derwinski.arkham.Util.readText;
+import pl.derwinski.arkham.json.FieldBinder;
 
 /**
  *
  * @author morvael
  */
-public final class MetadataTabooSet {
+public final class MetadataTabooSet implements Serializable {
 
-    private static final HashSet<String> unhandled = new HashSet<>();
+    private static final long serialVersionUID = 1L;
 
-    public static LinkedHashMap<Integer, MetadataTabooSet> readMetadataTabooSets(JsonNode c) throws Exception {
-        if (c.isArray()) {
+    private static final FieldBinder<MetadataTabooSet, Void> BINDER = new FieldBinder<MetadataTabooSet, Void>("MetadataTabooSet")
+            .string("name", (o, x, v) -> o.name = v)
+            .integer("card_count", (o, x, v) -> o.cardCount = v)
+            .integer("id", (o, x, v) -> o.id = v)
+            .string("date", (o, x, v) -> o.date = v);
+
+    public static LinkedHashMap<Integer, MetadataTabooSet> readMetadataTabooSets(JsonParser c) throws Exception {
+        if (c.currentToken() == JsonToken.START_ARRAY) {
             var result = new LinkedHashMap<Integer, MetadataTabooSet>();
-            for (var i = 0; i < c.size(); i++) {
-                var mt = readMetadataTabooSet(c.get(i));
+            while (c.nextToken() != JsonToken.END_ARRAY) {
+                var mt = readMetadataTabooSet(c);
                 result.put(mt.getId(), mt);
             }
             return result;
         } else {
-            if (c.isNull() == false) {
-                log("Error reading MetadataTabooSet array: %s", c.asText());
+            if (c.currentToken() != JsonToken.VALUE_NULL) {
+                log("Error reading MetadataTabooSet array: %s", readText(c));
             }
             return null;
         }
     }
 
-    public static MetadataTabooSet readMetadataTabooSet(JsonNode c) throws Exception {
-        if (c.isObject()) {
-            var o = new MetadataTabooSet();
-            var it = c.fieldNames();
-            while (it.hasNext()) {
-                var fieldName = it.next();
-                switch (fieldName) {
-                    case "name":
-                        o.name = readString(c, fieldName);
-                        break;
-                    case "card_count":
-                        o.cardCount = readInteger(c, fieldName);
-                        break;
-                    case "id":
-                        o.id = readInteger(c, fieldName);
-                        break;
-                    case "date":
-                        o.date = readString(c, fieldName);
-                        break;
-                    default:
-                        if (unhandled.add(fieldName)) {
-                            log("Unhandled field name in MetadataTabooSet: %s (%s : %s)", fieldName, c.get(fieldName), c.get(fieldName).getNodeType());
-                        }
-                        break;
-                }
-            }
-            return o;
+    public static MetadataTabooSet readMetadataTabooSet(JsonParser c) throws Exception {
+        if (c.currentToken() == JsonToken.START_OBJECT) {
+            return BINDER.read(new MetadataTabooSet(), null, c);
         } else {
-            if (c.isNull() == false) {
-                log("Error reading MetadataTabooSet object: %s", c.asText());
+            if (c.currentToken() != JsonToken.VALUE_NULL) {
+                log("Error reading MetadataTabooSet object: %s", readText(c));
             }
             return null;
         }